@@ -0,0 +1,124 @@
+package com.example.demo.bench;
+
+import com.example.demo.alerting.CompiledRuleSet;
+import com.example.demo.alerting.CurveSeries;
+import com.example.demo.alerting.RecoveryCurveIndex;
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.DeviationRule;
+import com.example.demo.model.PatientProfile;
+import com.example.demo.model.RecoveryCurveProfile;
+import com.example.demo.repository.RecoveryCurveProfileRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The per-log work of alert evaluation: curve lookup by surgery type followed
+ * by rule evaluation against the compiled rule set.
+ */
+@State(Scope.Benchmark)
+public class AlertingBenchmark {
+
+    private static final String[] SURGERY_TYPES = {"KNEE_REPLACEMENT", "HIP_REPLACEMENT", "ACL_RECONSTRUCTION", "SPINAL_FUSION"};
+    private static final int CURVE_DAYS = 90;
+
+    private RecoveryCurveIndex recoveryCurveIndex;
+    private CompiledRuleSet ruleSet;
+    private PatientProfile[] patients;
+    private DailySymptomLog[] logs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<RecoveryCurveProfile> curves = new ArrayList<>();
+        for (String surgeryType : SURGERY_TYPES) {
+            for (int day = 0; day < CURVE_DAYS; day++) {
+                curves.add(new RecoveryCurveProfile(null, surgeryType, day,
+                        Math.max(1, 8 - day / 12), Math.min(10, 2 + day / 10), Math.max(1, 7 - day / 15)));
+            }
+        }
+        recoveryCurveIndex = new RecoveryCurveIndex(curveRepository(curves));
+        recoveryCurveIndex.reloadAll();
+
+        List<DeviationRule> rules = new ArrayList<>();
+        String[] parameters = {"PAIN", "MOBILITY", "FATIGUE"};
+        String[] severities = {"LOW", "MEDIUM", "HIGH"};
+        for (String parameter : parameters) {
+            for (int i = 0; i < severities.length; i++) {
+                rules.add(new DeviationRule(null, parameter + "_" + severities[i], parameter, 2 + i * 2, severities[i], true));
+            }
+        }
+        ruleSet = CompiledRuleSet.compile(rules);
+
+        Random random = new Random(42);
+        LocalDateTime surgery = LocalDateTime.of(2024, 1, 1, 8, 0);
+        patients = new PatientProfile[64];
+        logs = new DailySymptomLog[1024];
+        for (int i = 0; i < patients.length; i++) {
+            patients[i] = new PatientProfile((long) i, "P" + i, "Patient " + i, 60, "p" + i + "@example.com",
+                    SURGERY_TYPES[i % SURGERY_TYPES.length], true, surgery);
+        }
+        for (int i = 0; i < logs.length; i++) {
+            logs[i] = new DailySymptomLog((long) i, (long) (i % patients.length), surgery.toLocalDate().plusDays(random.nextInt(CURVE_DAYS)),
+                    random.nextInt(11), random.nextInt(11), random.nextInt(11), null);
+        }
+    }
+
+    @Benchmark
+    public CurveSeries curveLookup() {
+        DailySymptomLog log = nextLog();
+        return recoveryCurveIndex.get(patients[log.getPatientId().intValue()].getSurgeryType());
+    }
+
+    @Benchmark
+    public List<ClinicalAlertRecord> checkForAlerts() {
+        DailySymptomLog log = nextLog();
+        PatientProfile patient = patients[log.getPatientId().intValue()];
+        long day = ChronoUnit.DAYS.between(patient.getCreatedAt().toLocalDate(), log.getLogDate());
+        CurveSeries curve = recoveryCurveIndex.get(patient.getSurgeryType());
+        if (!curve.covers(day)) {
+            return List.of();
+        }
+        return ruleSet.evaluate(log, curve, (int) day);
+    }
+
+    @Benchmark
+    public void checkForAlertsBatch(Blackhole blackhole) {
+        LocalDate base = patients[0].getCreatedAt().toLocalDate();
+        for (DailySymptomLog log : logs) {
+            PatientProfile patient = patients[log.getPatientId().intValue()];
+            int day = (int) ChronoUnit.DAYS.between(base, log.getLogDate());
+            blackhole.consume(ruleSet.evaluate(log, recoveryCurveIndex.get(patient.getSurgeryType()), day));
+        }
+    }
+
+    private DailySymptomLog nextLog() {
+        DailySymptomLog log = logs[next];
+        next = (next + 1) & (logs.length - 1);
+        return log;
+    }
+
+    // Only the two queries the index issues are answered; the benchmark never reaches the database
+    private static RecoveryCurveProfileRepository curveRepository(List<RecoveryCurveProfile> curves) {
+        return (RecoveryCurveProfileRepository) Proxy.newProxyInstance(RecoveryCurveProfileRepository.class.getClassLoader(),
+                new Class<?>[]{RecoveryCurveProfileRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll" -> curves;
+                    case "findBySurgeryTypeOrderByDayNumberAsc" -> curves.stream()
+                            .filter(c -> c.getSurgeryType().equals(args[0]))
+                            .toList();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
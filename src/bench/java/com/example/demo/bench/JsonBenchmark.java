@@ -0,0 +1,55 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.PatientProfile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response serialization of patient and log listings, using an ObjectMapper
+ * configured the way Spring Boot configures the application's.
+ */
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    @Param({"50", "500"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<PatientProfile> patients;
+    private List<DailySymptomLog> logs;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        patients = new ArrayList<>(size);
+        logs = new ArrayList<>(size);
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 0; i < size; i++) {
+            patients.add(new PatientProfile((long) i, "P" + i, "Patient " + i, 40 + i % 40, "p" + i + "@example.com",
+                    "KNEE_REPLACEMENT", true, created));
+            logs.add(new DailySymptomLog((long) i, 1L, LocalDate.of(2024, 1, 1).plusDays(i), i % 11, (i + 3) % 11, (i + 7) % 11,
+                    i % 5 == 0 ? "Slept badly" : null));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializePatients() throws Exception {
+        return objectMapper.writeValueAsBytes(patients);
+    }
+
+    @Benchmark
+    public byte[] serializeLogs() throws Exception {
+        return objectMapper.writeValueAsBytes(logs);
+    }
+}
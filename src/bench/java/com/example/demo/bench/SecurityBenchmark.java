@@ -0,0 +1,86 @@
+package com.example.demo.bench;
+
+import com.example.demo.config.SecurityConfig;
+import com.example.demo.model.AppUser;
+import com.example.demo.model.UserRole;
+import com.example.demo.security.JwtTokenVerifier;
+import com.example.demo.security.JwtUtil;
+import com.example.demo.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification, the per-request authentication cost with and
+ * without the verified-token cache, and password hashing.
+ */
+@State(Scope.Benchmark)
+public class SecurityBenchmark {
+
+    private JwtUtil jwtUtil;
+    private JwtTokenVerifier jwtTokenVerifier;
+    private PasswordEncoder passwordEncoder;
+    private AppUser user;
+    private String token;
+    private String passwordHash;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        jwtTokenVerifier = new JwtTokenVerifier(jwtUtil, new SimpleMeterRegistry(), 10_000, 15);
+        passwordEncoder = new SecurityConfig().passwordEncoder();
+        user = AppUser.builder()
+                .id(42L)
+                .email("clinician@example.com")
+                .fullName("Clinician")
+                .role(UserRole.CLINICIAN)
+                .build();
+        token = jwtUtil.generateTokenForUser(user);
+        passwordHash = passwordEncoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String generateToken() {
+        return jwtUtil.generateTokenForUser(user);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Claims parseToken() {
+        return jwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Optional<VerifiedToken> verifyCachedToken() {
+        return jwtTokenVerifier.verify(token);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String bcryptEncode() {
+        return passwordEncoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean bcryptMatches() {
+        return passwordEncoder.matches("correct horse battery staple", passwordHash);
+    }
+}
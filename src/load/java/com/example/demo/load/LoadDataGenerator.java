@@ -0,0 +1,186 @@
+package com.example.demo.load;
+
+import com.example.demo.model.AppUser;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.DeviationRule;
+import com.example.demo.model.PatientProfile;
+import com.example.demo.model.RecoveryCurveProfile;
+import com.example.demo.model.UserRole;
+import com.example.demo.repository.AppUserRepository;
+import com.example.demo.repository.DeviationRuleRepository;
+import com.example.demo.repository.PatientProfileRepository;
+import com.example.demo.repository.RecoveryCurveProfileRepository;
+import com.example.demo.service.DailySymptomLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills the embedded database of the {@code load} profile with synthetic data:
+ * clinician accounts, patients, a recovery curve per surgery type, deviation
+ * rules (including two multi-day ones) and a daily log per patient for every
+ * day since surgery. The same seed always produces the same data.
+ *
+ * <p>Runs before the application reports ready, so the curve index and rule
+ * engine load the generated data on startup. Logs for the most recent days go
+ * through alert evaluation so the alert endpoints have data to return.
+ */
+@Component
+@Profile("load")
+public class LoadDataGenerator implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadDataGenerator.class);
+
+    public static final String[] SURGERY_TYPES = {"KNEE_REPLACEMENT", "HIP_REPLACEMENT", "ACL_RECONSTRUCTION", "SPINAL_FUSION"};
+    private static final String[] PARAMETERS = {"PAIN", "MOBILITY", "FATIGUE"};
+    private static final String[] SEVERITIES = {"LOW", "MEDIUM", "HIGH"};
+    private static final int EVALUATED_DAYS = 14;
+
+    private final AppUserRepository appUserRepository;
+    private final PatientProfileRepository patientProfileRepository;
+    private final RecoveryCurveProfileRepository recoveryCurveProfileRepository;
+    private final DeviationRuleRepository deviationRuleRepository;
+    private final DailySymptomLogService dailySymptomLogService;
+    private final PasswordEncoder passwordEncoder;
+    private final int userCount;
+    private final int patientCount;
+    private final int days;
+    private final long seed;
+    private final String password;
+    private final LocalDate surgeryDate;
+
+    public LoadDataGenerator(AppUserRepository appUserRepository, PatientProfileRepository patientProfileRepository,
+                             RecoveryCurveProfileRepository recoveryCurveProfileRepository, DeviationRuleRepository deviationRuleRepository,
+                             DailySymptomLogService dailySymptomLogService, PasswordEncoder passwordEncoder,
+                             @Value("${load.data.users:20}") int userCount,
+                             @Value("${load.data.patients:500}") int patientCount,
+                             @Value("${load.data.days:90}") int days,
+                             @Value("${load.data.seed:42}") long seed,
+                             @Value("${load.data.password:load-test-password}") String password,
+                             @Value("${load.data.surgery-date:2024-01-01}") LocalDate surgeryDate) {
+        this.appUserRepository = appUserRepository;
+        this.patientProfileRepository = patientProfileRepository;
+        this.recoveryCurveProfileRepository = recoveryCurveProfileRepository;
+        this.deviationRuleRepository = deviationRuleRepository;
+        this.dailySymptomLogService = dailySymptomLogService;
+        this.passwordEncoder = passwordEncoder;
+        this.userCount = userCount;
+        this.patientCount = patientCount;
+        this.days = days;
+        this.seed = seed;
+        this.password = password;
+        this.surgeryDate = surgeryDate;
+    }
+
+    public static String userEmail(int index) {
+        return "load-user-" + index + "@example.com";
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (patientProfileRepository.count() > 0) {
+            logger.info("Load data already present; skipping generation");
+            return;
+        }
+        long started = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        String passwordHash = passwordEncoder.encode(password);
+        List<AppUser> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(AppUser.builder()
+                    .email(userEmail(i))
+                    .password(passwordHash)
+                    .fullName("Load User " + i)
+                    .role(UserRole.CLINICIAN)
+                    .build());
+        }
+        appUserRepository.saveAll(users);
+
+        List<RecoveryCurveProfile> curves = new ArrayList<>();
+        for (String surgeryType : SURGERY_TYPES) {
+            for (int day = 0; day < days; day++) {
+                curves.add(new RecoveryCurveProfile(null, surgeryType, day,
+                        expectedPain(day), expectedMobility(day), expectedFatigue(day)));
+            }
+        }
+        recoveryCurveProfileRepository.saveAll(curves);
+
+        List<DeviationRule> rules = new ArrayList<>();
+        for (String parameter : PARAMETERS) {
+            for (int i = 0; i < SEVERITIES.length; i++) {
+                rules.add(new DeviationRule(null, parameter + "_" + SEVERITIES[i], parameter, 2 + i * 2, SEVERITIES[i], true));
+            }
+        }
+        rules.add(DeviationRule.builder().ruleCode("PAIN_STREAK_3").parameter("PAIN").threshold(1).severity("MEDIUM")
+                .active(true).conditionType("CONSECUTIVE_DEVIATION").windowDays(3).build());
+        rules.add(DeviationRule.builder().ruleCode("MOBILITY_DECLINE_4").parameter("MOBILITY").threshold(2).severity("HIGH")
+                .active(true).conditionType("DECLINING_TREND").windowDays(4).build());
+        deviationRuleRepository.saveAll(rules);
+
+        List<PatientProfile> patients = new ArrayList<>(patientCount);
+        for (int i = 0; i < patientCount; i++) {
+            patients.add(PatientProfile.builder()
+                    .patientId(String.format("LOAD-%05d", i))
+                    .fullName("Load Patient " + i)
+                    .age(35 + random.nextInt(50))
+                    .email("load-patient-" + i + "@example.com")
+                    .surgeryType(SURGERY_TYPES[i % SURGERY_TYPES.length])
+                    .active(true)
+                    .createdAt(surgeryDate.atStartOfDay())
+                    .build());
+        }
+        patients = patientProfileRepository.saveAll(patients);
+
+        long logCount = 0;
+        int historyDays = Math.max(0, days - EVALUATED_DAYS);
+        for (PatientProfile patient : patients) {
+            List<DailySymptomLog> logs = new ArrayList<>(days);
+            for (int day = 0; day < days; day++) {
+                logs.add(DailySymptomLog.builder()
+                        .patientId(patient.getId())
+                        .logDate(surgeryDate.plusDays(day))
+                        .painLevel(noisy(random, expectedPain(day)))
+                        .mobilityLevel(noisy(random, expectedMobility(day)))
+                        .fatigueLevel(noisy(random, expectedFatigue(day)))
+                        .build());
+            }
+            dailySymptomLogService.recordSymptomLogs(logs.subList(0, historyDays), false);
+            dailySymptomLogService.recordSymptomLogs(logs.subList(historyDays, days), true);
+            logCount += days;
+        }
+
+        logger.info("Generated {} users, {} patients, {} curve entries, {} rules and {} logs in {} ms",
+                userCount, patientCount, curves.size(), rules.size(), logCount, System.currentTimeMillis() - started);
+    }
+
+    private static int expectedPain(int day) {
+        return Math.max(1, 8 - day / 12);
+    }
+
+    private static int expectedMobility(int day) {
+        return Math.min(10, 2 + day / 10);
+    }
+
+    private static int expectedFatigue(int day) {
+        return Math.max(1, 7 - day / 15);
+    }
+
+    // Mostly close to the curve, with occasional large deviations that trigger alerts
+    private static int noisy(Random random, int expected) {
+        int value = random.nextInt(100) < 3
+                ? expected + (random.nextBoolean() ? 5 : -5)
+                : expected + (int) Math.round(random.nextGaussian());
+        return Math.max(0, Math.min(10, value));
+    }
+}
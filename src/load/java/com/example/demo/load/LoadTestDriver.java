@@ -0,0 +1,409 @@
+package com.example.demo.load;
+
+import com.example.demo.DemoApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Closed-loop HTTP load test against the application running in-process on the
+ * {@code load} profile.
+ *
+ * <p>Each endpoint is driven on its own, first for a warm-up period that is
+ * discarded and then for the measured period, by a fixed number of workers
+ * that each send the next request as soon as the previous one returns.
+ * Throughput and latency percentiles are printed per endpoint and written as
+ * JSON. Because the loop is closed, latencies do not include time a request
+ * would have spent waiting to be sent under an open arrival rate.
+ *
+ * <p>The bulk scenarios then insert a fixed number of new logs, once through
+ * concurrent {@code /api/symptom-logs/batch} requests of the maximum batch size
+ * and once as a single NDJSON {@code /api/symptom-logs/import} stream, and
+ * report rows per second.
+ *
+ * <p>Options (system properties):
+ * <ul>
+ *   <li>{@code load.concurrency} - concurrent workers, default 32</li>
+ *   <li>{@code load.duration-seconds} - measured time per endpoint, default 30</li>
+ *   <li>{@code load.warmup-seconds} - discarded time per endpoint, default 5</li>
+ *   <li>{@code load.endpoints} - comma-separated subset of the scenario names,
+ *       including {@code bulk.batch} and {@code bulk.import}</li>
+ *   <li>{@code load.bulk-logs} - logs inserted by each bulk scenario, default 100000</li>
+ *   <li>{@code load.app-args} - extra application arguments, e.g.
+ *       {@code --spring.profiles.active=load,virtual} to compare thread modes</li>
+ *   <li>{@code load.result-file} - JSON output, default target/load-result.json</li>
+ * </ul>
+ */
+public final class LoadTestDriver {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final String baseUrl;
+    private final int userCount;
+    private final int batchSize;
+    private final String password;
+    private final LocalDate firstFreeDate;
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Long> patientIds = new ArrayList<>();
+    private final AtomicLong createdLogs = new AtomicLong();
+
+    private LoadTestDriver(String baseUrl, Environment environment) {
+        this.baseUrl = baseUrl;
+        this.userCount = environment.getProperty("load.data.users", Integer.class, 20);
+        this.batchSize = environment.getProperty("symptom-log.batch.max-size", Integer.class, 500);
+        this.password = environment.getProperty("load.data.password", "load-test-password");
+        LocalDate surgeryDate = LocalDate.parse(environment.getProperty("load.data.surgery-date", "2024-01-01"));
+        this.firstFreeDate = surgeryDate.plusDays(environment.getProperty("load.data.days", Integer.class, 90));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("load.concurrency", 32);
+        int durationSeconds = Integer.getInteger("load.duration-seconds", 30);
+        int warmupSeconds = Integer.getInteger("load.warmup-seconds", 5);
+        int bulkLogs = Integer.getInteger("load.bulk-logs", 100_000);
+        String endpoints = System.getProperty("load.endpoints", "");
+        String appArgs = System.getProperty("load.app-args", "--spring.profiles.active=load");
+        File resultFile = new File(System.getProperty("load.result-file", "target/load-result.json"));
+
+        List<String> applicationArgs = new ArrayList<>(Arrays.asList(appArgs.trim().split("\\s+")));
+        applicationArgs.add("--server.port=0");
+        applicationArgs.add("--logging.level.root=WARN");
+        ConfigurableApplicationContext context = SpringApplication.run(DemoApplication.class, applicationArgs.toArray(String[]::new));
+        try {
+            Environment environment = context.getEnvironment();
+            String baseUrl = "http://localhost:" + environment.getProperty("local.server.port");
+            LoadTestDriver driver = new LoadTestDriver(baseUrl, environment);
+            driver.prepare();
+
+            Set<String> selected = endpoints.isBlank()
+                    ? null
+                    : Arrays.stream(endpoints.split(",")).map(String::trim).collect(Collectors.toSet());
+            List<Result> results = new ArrayList<>();
+            for (Scenario scenario : driver.scenarios()) {
+                if (selected == null || selected.contains(scenario.name)) {
+                    driver.run(scenario, concurrency, warmupSeconds);
+                    results.add(driver.run(scenario, concurrency, durationSeconds));
+                }
+            }
+            List<BulkResult> bulkResults = new ArrayList<>();
+            if (selected == null || selected.contains("bulk.batch")) {
+                bulkResults.add(driver.bulkBatch(bulkLogs, concurrency));
+            }
+            if (selected == null || selected.contains("bulk.import")) {
+                bulkResults.add(driver.bulkImport(bulkLogs));
+            }
+            report(results, bulkResults, concurrency, durationSeconds, appArgs, resultFile);
+        } finally {
+            context.close();
+        }
+    }
+
+    private void prepare() throws IOException, InterruptedException {
+        for (int i = 0; i < userCount; i++) {
+            HttpResponse<String> response = send(loginRequest(i));
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Login failed for " + LoadDataGenerator.userEmail(i) + ": " + response.statusCode());
+            }
+            tokens.add(MAPPER.readTree(response.body()).get("token").asText());
+        }
+
+        String cursor = null;
+        do {
+            String url = "/api/patients?size=500" + (cursor == null ? "" : "&cursor=" + cursor);
+            JsonNode page = MAPPER.readTree(send(get(url, 0)).body());
+            page.get("items").forEach(patient -> patientIds.add(patient.get("id").asLong()));
+            cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        if (patientIds.isEmpty()) {
+            throw new IllegalStateException("No patients were generated");
+        }
+    }
+
+    private List<Scenario> scenarios() {
+        return List.of(
+                new Scenario("auth.login", worker -> loginRequest(worker % userCount)),
+                new Scenario("patients.list", worker -> get("/api/patients?size=50", worker)),
+                new Scenario("logs.list", worker -> get("/api/symptom-logs?size=50&patientId=" + randomPatient(), worker)),
+                new Scenario("logs.create", this::createLogRequest),
+                new Scenario("alerts.list", worker -> get("/api/alerts?size=50&patientId=" + randomPatient(), worker)));
+    }
+
+    private Result run(Scenario scenario, int concurrency, int seconds) throws InterruptedException {
+        Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            int worker = i;
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    long started = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = send(scenario.request.apply(worker));
+                        if (response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    latencies.recordValue(Math.min(latencies.getHighestTrackableValue(),
+                            TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started)));
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        return new Result(scenario.name, latencies, errors.get(), seconds);
+    }
+
+    /**
+     * Inserts the logs through batch requests of the maximum size, sent by the
+     * given number of workers until every batch has been sent.
+     */
+    private BulkResult bulkBatch(int logs, int concurrency) throws InterruptedException {
+        AtomicLong remaining = new AtomicLong(logs);
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long started = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            int worker = i;
+            workers.execute(() -> {
+                long size;
+                while ((size = Math.min(batchSize, remaining.getAndAdd(-batchSize))) > 0) {
+                    StringBuilder body = new StringBuilder("[");
+                    for (int n = 0; n < size; n++) {
+                        body.append(n == 0 ? "" : ",").append(newLogJson());
+                    }
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/symptom-logs/batch"))
+                            .header("Authorization", "Bearer " + tokens.get(worker % tokens.size()))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body.append(']').toString()))
+                            .build();
+                    try {
+                        HttpResponse<String> response = send(request);
+                        if (response.statusCode() >= 400) {
+                            errors.addAndGet(size);
+                            continue;
+                        }
+                        for (JsonNode result : MAPPER.readTree(response.body())) {
+                            if ("ACCEPTED".equals(result.path("status").asText())) {
+                                accepted.incrementAndGet();
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    } catch (IOException e) {
+                        errors.addAndGet(size);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        return new BulkResult("bulk.batch", logs, accepted.get(), errors.get(), System.nanoTime() - started);
+    }
+
+    /** Inserts the logs as one NDJSON import, which stores them without alert evaluation. */
+    private BulkResult bulkImport(int logs) throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder(logs * 96);
+        for (int n = 0; n < logs; n++) {
+            body.append(newLogJson()).append('\n');
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/symptom-logs/import"))
+                .header("Authorization", "Bearer " + tokens.get(0))
+                .header("Content-Type", "application/x-ndjson")
+                .timeout(Duration.ofHours(1))
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        long started = System.nanoTime();
+        HttpResponse<String> response = send(request);
+        long elapsed = System.nanoTime() - started;
+        if (response.statusCode() >= 400) {
+            return new BulkResult("bulk.import", logs, 0, logs, elapsed);
+        }
+        JsonNode summary = MAPPER.readTree(response.body());
+        long accepted = summary.path("accepted").asLong();
+        return new BulkResult("bulk.import", logs, accepted, logs - accepted, elapsed);
+    }
+
+    private HttpRequest createLogRequest(int worker) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/symptom-logs"))
+                .header("Authorization", "Bearer " + tokens.get(worker % tokens.size()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(newLogJson()))
+                .build();
+    }
+
+    private String newLogJson() {
+        // Every log gets a patient/date pair that has not been used yet
+        long n = createdLogs.getAndIncrement();
+        long patientId = patientIds.get((int) (n % patientIds.size()));
+        LocalDate date = firstFreeDate.plusDays(n / patientIds.size());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return String.format("{\"patientId\":%d,\"logDate\":\"%s\",\"painLevel\":%d,\"mobilityLevel\":%d,\"fatigueLevel\":%d}",
+                patientId, date, random.nextInt(11), random.nextInt(11), random.nextInt(11));
+    }
+
+    private HttpRequest loginRequest(int user) {
+        String body = String.format("{\"email\":\"%s\",\"password\":\"%s\"}", LoadDataGenerator.userEmail(user), password);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest get(String path, int worker) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + tokens.get(worker % tokens.size()))
+                .GET()
+                .build();
+    }
+
+    private long randomPatient() {
+        return patientIds.get(ThreadLocalRandom.current().nextInt(patientIds.size()));
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void report(List<Result> results, List<BulkResult> bulkResults, int concurrency, int seconds, String appArgs,
+                               File resultFile) throws IOException {
+        System.out.printf("%nLoad test: %d workers, %d s per endpoint, app args: %s%n", concurrency, seconds, appArgs);
+        System.out.printf("%-16s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        ObjectNode json = MAPPER.createObjectNode();
+        json.put("concurrency", concurrency);
+        json.put("durationSeconds", seconds);
+        json.put("appArgs", appArgs);
+        ArrayNode endpoints = json.putArray("endpoints");
+        for (Result result : results) {
+            Histogram h = result.latencies;
+            System.out.printf("%-16s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    result.name, h.getTotalCount(), result.errors, result.throughput(),
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+                    millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()));
+            ObjectNode node = endpoints.addObject();
+            node.put("endpoint", result.name);
+            node.put("requests", h.getTotalCount());
+            node.put("errors", result.errors);
+            node.put("throughput", result.throughput());
+            node.put("p50Millis", millis(h.getValueAtPercentile(50)));
+            node.put("p99Millis", millis(h.getValueAtPercentile(99)));
+            node.put("p999Millis", millis(h.getValueAtPercentile(99.9)));
+            node.put("maxMillis", millis(h.getMaxValue()));
+        }
+        if (!bulkResults.isEmpty()) {
+            System.out.printf("%n%-16s %10s %10s %8s %10s %10s%n", "bulk insert", "rows", "accepted", "errors", "seconds", "rows/s");
+        }
+        ArrayNode bulk = json.putArray("bulkInserts");
+        for (BulkResult result : bulkResults) {
+            System.out.printf("%-16s %10d %10d %8d %10.2f %10.1f%n",
+                    result.name, result.rows, result.accepted, result.errors, result.seconds(), result.rowsPerSecond());
+            ObjectNode node = bulk.addObject();
+            node.put("scenario", result.name);
+            node.put("rows", result.rows);
+            node.put("accepted", result.accepted);
+            node.put("errors", result.errors);
+            node.put("seconds", result.seconds());
+            node.put("rowsPerSecond", result.rowsPerSecond());
+        }
+        File parent = resultFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(resultFile, json);
+        System.out.println("Results written to " + resultFile.getPath());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Scenario {
+        private final String name;
+        private final Function<Integer, HttpRequest> request;
+
+        private Scenario(String name, Function<Integer, HttpRequest> request) {
+            this.name = name;
+            this.request = request;
+        }
+    }
+
+    private static final class Result {
+        private final String name;
+        private final Histogram latencies;
+        private final long errors;
+        private final int seconds;
+
+        private Result(String name, Histogram latencies, long errors, int seconds) {
+            this.name = name;
+            this.latencies = latencies;
+            this.errors = errors;
+            this.seconds = seconds;
+        }
+
+        private double throughput() {
+            return (double) latencies.getTotalCount() / seconds;
+        }
+    }
+
+    private static final class BulkResult {
+        private final String name;
+        private final long rows;
+        private final long accepted;
+        private final long errors;
+        private final long elapsedNanos;
+
+        private BulkResult(String name, long rows, long accepted, long errors, long elapsedNanos) {
+            this.name = name;
+            this.rows = rows;
+            this.accepted = accepted;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        private double seconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        // Only stored rows count towards the rate
+        private double rowsPerSecond() {
+            return accepted / seconds();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.demo.alerting;
+
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.repository.ClinicalAlertRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.sql.Date;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Folds repeat alerts into the patient's open alert of the same type and
+ * severity, which counts the days it fired and keeps the first and last one.
+ * A firing past the suppression window, or after a resolve, opens a new alert.
+ * Open alerts are remembered in a bounded map and updated in one JDBC batch.
+ */
+@Component
+public class AlertCoalescer {
+
+    private static final int LOCK_STRIPES = 64;
+
+    // Matches nothing once the alert is resolved, or when it was already seen on that day or later
+    private static final String RECORD_OCCURRENCE = "update clinical_alert_record"
+            + " set occurrence_count = coalesce(occurrence_count, 1) + 1, last_seen_date = ?"
+            + " where id = ? and resolved = false and (last_seen_date is null or last_seen_date < ?)";
+
+    // For a late log: counts a day between the first and last seen days; a day before the first seen one makes the log
+    // the alert's opening log. The log is assigned first since MySQL applies the assignments in order
+    private static final String RECORD_EARLIER_OCCURRENCE = "update clinical_alert_record"
+            + " set occurrence_count = coalesce(occurrence_count, 1) + 1,"
+            + " log_id = case when first_seen_date > ? then ? else log_id end,"
+            + " first_seen_date = case when first_seen_date > ? then ? else first_seen_date end"
+            + " where id = ? and resolved = false and last_seen_date > ? and first_seen_date <> ?";
+
+    private final ClinicalAlertRecordRepository clinicalAlertRecordRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final Cache<AlertKey, OpenAlert> openAlerts;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final long windowDays;
+
+    private final Counter opened;
+    private final Counter coalesced;
+    private final Counter suppressed;
+
+    public AlertCoalescer(ClinicalAlertRecordRepository clinicalAlertRecordRepository, JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                          @Value("${alerts.coalesce.window-days:7}") long windowDays,
+                          @Value("${alerts.coalesce.max-open-alerts:200000}") long maxOpenAlerts,
+                          @Value("${alerts.coalesce.idle-minutes:1440}") long idleMinutes) {
+        this.clinicalAlertRecordRepository = clinicalAlertRecordRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.windowDays = windowDays;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.openAlerts = Caffeine.newBuilder()
+                .maximumSize(maxOpenAlerts)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, openAlerts, "open-alerts");
+        this.opened = meterRegistry.counter("alerts.coalesce", "result", "opened");
+        this.coalesced = meterRegistry.counter("alerts.coalesce", "result", "coalesced");
+        this.suppressed = meterRegistry.counter("alerts.coalesce", "result", "suppressed");
+    }
+
+    /**
+     * Stores the alerts in one transaction, folding each into the matching open
+     * alert where there is one, and returns those stored as new rows.
+     */
+    public List<ClinicalAlertRecord> record(List<ClinicalAlertRecord> alerts) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        alerts.forEach(alert -> stripes.add(Math.floorMod(AlertKey.of(alert).hashCode(), LOCK_STRIPES)));
+        Batch batch = new Batch();
+        // The connection is taken before the locks, so a lock holder never waits on the pool, and the
+        // locks are held until commit, so no two callers both see no open alert and each insert one
+        TransactionStatus status = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        stripes.forEach(stripe -> locks[stripe].lock());
+        try {
+            alerts.forEach(alert -> recordOne(alert, batch, 0));
+            applyRepeats(batch);
+            transactionManager.commit(status);
+            batch.created.forEach((key, alert) -> batch.open.put(key, new OpenAlert(alert.getId(), alert.getLastSeenDate())));
+            openAlerts.putAll(batch.open);
+        } catch (RuntimeException | Error e) {
+            if (!status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+            throw e;
+        } finally {
+            stripes.descendingSet().forEach(stripe -> locks[stripe].unlock());
+        }
+        opened.increment(batch.inserted.size());
+        coalesced.increment(batch.coalesced);
+        suppressed.increment(batch.suppressed);
+        return batch.inserted;
+    }
+
+    /** Whether a firing on the day still belongs to an alert last seen on lastSeen. */
+    public boolean continues(LocalDate lastSeen, LocalDate day) {
+        return lastSeen == null || ChronoUnit.DAYS.between(lastSeen, day) <= windowDays;
+    }
+
+    public void forget(ClinicalAlertRecord alert) {
+        openAlerts.invalidate(AlertKey.of(alert));
+    }
+
+    private void recordOne(ClinicalAlertRecord alert, Batch batch, int attempt) {
+        AlertKey key = AlertKey.of(alert);
+        LocalDate day = alert.getLastSeenDate();
+        if (day == null) {
+            batch.inserted.add(clinicalAlertRecordRepository.save(alert));
+            return;
+        }
+
+        // Opened earlier in this batch and not yet flushed, so updated in memory
+        ClinicalAlertRecord created = batch.created.get(key);
+        if (created != null && continues(created.getLastSeenDate(), day)) {
+            if (day.isAfter(created.getLastSeenDate())) {
+                created.setOccurrenceCount(created.getOccurrenceCount() + 1);
+                created.setLastSeenDate(day);
+                batch.coalesced++;
+            } else if (!day.equals(created.getLastSeenDate()) && !day.equals(created.getFirstSeenDate())
+                    && batch.counted.add(new CountedDay(key, day))) {
+                created.setOccurrenceCount(created.getOccurrenceCount() + 1);
+                if (day.isBefore(created.getFirstSeenDate())) {
+                    created.setFirstSeenDate(day);
+                    created.setLogId(alert.getLogId());
+                }
+                batch.coalesced++;
+            } else {
+                batch.suppressed++;
+            }
+            return;
+        }
+
+        // Attempt 0 trusts the remembered alert, 1 reads the stored one after a failed update, 2 opens a new one
+        OpenAlert open = null;
+        if (attempt == 0) {
+            open = batch.open.containsKey(key) ? batch.open.get(key) : openAlerts.getIfPresent(key);
+        } else if (attempt == 1) {
+            open = batch.open.get(key);
+        }
+        if (open == null && attempt < 2) {
+            open = load(key);
+        }
+        if (open != null && continues(open.lastSeenDate(), day)) {
+            if (open.lastSeenDate() != null && !day.isAfter(open.lastSeenDate())) {
+                batch.open.put(key, open);
+                if (!day.equals(open.lastSeenDate()) && batch.counted.add(new CountedDay(key, day))) {
+                    batch.earlier.add(new Repeat(alert, open.id(), day, batch.sequence++));
+                } else {
+                    batch.suppressed++;
+                }
+            } else {
+                batch.open.put(key, new OpenAlert(open.id(), day));
+                batch.later.add(new Repeat(alert, open.id(), day, batch.sequence++));
+            }
+            return;
+        }
+        if (alert.getOccurrenceCount() == null) {
+            alert.setOccurrenceCount(1);
+        }
+        clinicalAlertRecordRepository.save(alert);
+        batch.inserted.add(alert);
+        batch.open.remove(key);
+        batch.created.put(key, alert);
+    }
+
+    /**
+     * Runs the deferred updates and replays, against the stored alert, those of
+     * keys whose alert was resolved or advanced elsewhere.
+     */
+    private void applyRepeats(Batch batch) {
+        for (int attempt = 1; !batch.earlier.isEmpty() || !batch.later.isEmpty(); attempt++) {
+            // Later days first, as the late days between them were counted against the advanced alert
+            int[] laterCounts = update(RECORD_OCCURRENCE, batch.later, (ps, repeat) -> {
+                Date day = Date.valueOf(repeat.day());
+                ps.setDate(1, day);
+                ps.setLong(2, repeat.alertId());
+                ps.setDate(3, day);
+            });
+            List<Repeat> replay = new ArrayList<>();
+            Set<AlertKey> stale = new HashSet<>();
+            for (int i = 0; i < laterCounts.length; i++) {
+                if (applied(laterCounts[i])) {
+                    batch.coalesced++;
+                } else {
+                    replay.add(batch.later.get(i));
+                    stale.add(AlertKey.of(batch.later.get(i).alert()));
+                }
+            }
+
+            List<Repeat> earlier = new ArrayList<>();
+            for (Repeat repeat : batch.earlier) {
+                AlertKey key = AlertKey.of(repeat.alert());
+                if (stale.contains(key)) {
+                    batch.counted.remove(new CountedDay(key, repeat.day()));
+                    replay.add(repeat);
+                } else {
+                    earlier.add(repeat);
+                }
+            }
+            int[] earlierCounts = update(RECORD_EARLIER_OCCURRENCE, earlier, (ps, repeat) -> {
+                Date day = Date.valueOf(repeat.day());
+                ps.setDate(1, day);
+                ps.setObject(2, repeat.alert().getLogId());
+                ps.setDate(3, day);
+                ps.setDate(4, day);
+                ps.setLong(5, repeat.alertId());
+                ps.setDate(6, day);
+                ps.setDate(7, day);
+            });
+            // A late day that no longer fits is dropped
+            for (int count : earlierCounts) {
+                if (applied(count)) {
+                    batch.coalesced++;
+                } else {
+                    batch.suppressed++;
+                }
+            }
+
+            batch.earlier.clear();
+            batch.later.clear();
+            stale.forEach(batch.open::remove);
+            replay.sort(Comparator.comparingInt(Repeat::sequence));
+            for (Repeat repeat : replay) {
+                recordOne(repeat.alert(), batch, attempt);
+            }
+        }
+    }
+
+    private int[] update(String sql, List<Repeat> repeats, ParameterizedPreparedStatementSetter<Repeat> setter) {
+        return repeats.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(sql, repeats, repeats.size(), setter)[0];
+    }
+
+    // Drivers that rewrite batches may not report per-statement counts
+    private static boolean applied(int count) {
+        return count == 1 || count == Statement.SUCCESS_NO_INFO;
+    }
+
+    private OpenAlert load(AlertKey key) {
+        return clinicalAlertRecordRepository.findFirstByPatientIdAndAlertTypeAndSeverityAndResolvedFalseOrderByIdDesc(
+                        key.patientId(), key.alertType(), key.severity())
+                .map(alert -> new OpenAlert(alert.getId(), alert.getLastSeenDate()))
+                .orElse(null);
+    }
+
+    private record AlertKey(Long patientId, String alertType, String severity) {
+        static AlertKey of(ClinicalAlertRecord alert) {
+            return new AlertKey(alert.getPatientId(), alert.getAlertType(), alert.getSeverity());
+        }
+    }
+
+    private record OpenAlert(Long id, LocalDate lastSeenDate) {
+    }
+
+    private record CountedDay(AlertKey key, LocalDate day) {
+    }
+
+    private record Repeat(ClinicalAlertRecord alert, Long alertId, LocalDate day, int sequence) {
+    }
+
+    private static final class Batch {
+        private final List<ClinicalAlertRecord> inserted = new ArrayList<>();
+        // Latest alert opened per key in this batch
+        private final Map<AlertKey, ClinicalAlertRecord> created = new LinkedHashMap<>();
+        private final Map<AlertKey, OpenAlert> open = new HashMap<>();
+        // Earlier days counted in this batch, so a repeat of one is not counted again
+        private final Set<CountedDay> counted = new HashSet<>();
+        // Repeats of remembered alerts, applied together before commit
+        private final List<Repeat> earlier = new ArrayList<>();
+        private final List<Repeat> later = new ArrayList<>();
+        private int sequence;
+        private int coalesced;
+        private int suppressed;
+    }
+}
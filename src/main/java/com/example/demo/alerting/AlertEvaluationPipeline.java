@@ -0,0 +1,307 @@
+package com.example.demo.alerting;
+
+import com.example.demo.config.VirtualThreads;
+import com.example.demo.exception.ServiceBusyException;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.PatientProfile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates alerts for committed logs off the request thread.
+ *
+ * <p>Work is split into lanes, each with a single worker, and a patient always
+ * maps to the same lane. A worker holds each log for the reorder delay and
+ * evaluates a patient's held logs by date, so days committed out of order by
+ * concurrent requests are still evaluated in order; a day older than the
+ * patient's window by then is handled as a late log. Each lane has a fixed
+ * number of slots, taken before the log commits: when none frees up within the
+ * offer timeout the write fails with {@link ServiceBusyException} and rolls
+ * back, rather than storing a log that is never evaluated.
+ */
+@Component
+public class AlertEvaluationPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertEvaluationPipeline.class);
+
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final Comparator<Task> EVALUATION_ORDER = Comparator
+            .comparing((Task t) -> t.log.getPatientId())
+            .thenComparing(t -> t.log.getLogDate())
+            .thenComparingLong(t -> t.enqueuedAt);
+
+    private final AlertEvaluator alertEvaluator;
+    private final List<Lane> lanes = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final long offerTimeoutMillis;
+    private final long reorderNanos;
+    private final long shutdownTimeoutMillis;
+    private final boolean virtualThreads;
+    private final int laneCapacity;
+    private volatile boolean running = true;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter submitted;
+    private final Counter busy;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Timer lag;
+
+    public AlertEvaluationPipeline(AlertEvaluator alertEvaluator, MeterRegistry meterRegistry,
+                                   @Value("${alerts.pipeline.workers:4}") int workerCount,
+                                   @Value("${alerts.pipeline.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${alerts.pipeline.offer-timeout-ms:50}") long offerTimeoutMillis,
+                                   @Value("${alerts.pipeline.reorder-ms:200}") long reorderMillis,
+                                   @Value("${alerts.pipeline.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis,
+                                   @Value("${alerts.pipeline.virtual-threads:false}") boolean useVirtualThreads) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("alerts.pipeline.workers must be at least 1");
+        }
+        if (reorderMillis < 0) {
+            throw new IllegalArgumentException("alerts.pipeline.reorder-ms must not be negative");
+        }
+        this.alertEvaluator = alertEvaluator;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.reorderNanos = TimeUnit.MILLISECONDS.toNanos(reorderMillis);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+
+        ThreadFactory threadFactory = null;
+        if (useVirtualThreads) {
+            threadFactory = VirtualThreads.factory("alert-eval-").orElse(null);
+            if (threadFactory == null) {
+                logger.warn("Virtual threads requested for the alert pipeline but not supported by this runtime; using platform threads");
+            }
+        }
+        this.virtualThreads = threadFactory != null;
+        if (threadFactory == null) {
+            AtomicInteger sequence = new AtomicInteger();
+            threadFactory = r -> new Thread(r, "alert-eval-" + sequence.getAndIncrement());
+        }
+
+        this.laneCapacity = Math.max(1, queueCapacity / workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            Lane lane = new Lane(laneCapacity);
+            lanes.add(lane);
+            workers.add(threadFactory.newThread(() -> drain(lane)));
+        }
+
+        this.submitted = meterRegistry.counter("alerts.pipeline.submitted");
+        this.busy = meterRegistry.counter("alerts.pipeline.busy");
+        this.rejected = meterRegistry.counter("alerts.pipeline.rejected");
+        this.failed = meterRegistry.counter("alerts.pipeline.failed");
+        this.lag = Timer.builder("alerts.pipeline.lag")
+                .description("Time from submission until evaluation starts")
+                .register(meterRegistry);
+        Gauge.builder("alerts.pipeline.queue.depth", this, AlertEvaluationPipeline::queueDepth).register(meterRegistry);
+        Gauge.builder("alerts.pipeline.in.flight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        workers.forEach(Thread::start);
+    }
+
+    /**
+     * Takes a slot in the patient's lane and queues the log once the surrounding
+     * transaction commits, or immediately when there is none. Throws
+     * {@link ServiceBusyException} when the lane has no free slot within the
+     * offer timeout.
+     */
+    public void submit(DailySymptomLog log, PatientProfile patient) {
+        Lane lane = laneFor(log.getPatientId());
+        reserve(lane);
+        Task task = new Task(log, patient);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        enqueue(lane, task);
+                    } else {
+                        lane.slots.release();
+                    }
+                }
+            });
+        } else {
+            enqueue(lane, task);
+        }
+    }
+
+    // Reserved, queued, held and in-flight logs
+    public int queueDepth() {
+        int depth = 0;
+        for (Lane lane : lanes) {
+            depth += laneCapacity - lane.slots.availablePermits();
+        }
+        return depth;
+    }
+
+    public int capacity() {
+        return laneCapacity * lanes.size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", workers.size());
+        stats.put("virtualThreads", virtualThreads);
+        stats.put("queueDepth", queueDepth());
+        stats.put("queueCapacity", capacity());
+        stats.put("inFlight", inFlight.get());
+        stats.put("submitted", (long) submitted.count());
+        stats.put("busy", (long) busy.count());
+        stats.put("rejected", (long) rejected.count());
+        stats.put("failed", (long) failed.count());
+        stats.put("maxLagMillis", lag.max(TimeUnit.MILLISECONDS));
+        return stats;
+    }
+
+    private Lane laneFor(Long patientId) {
+        return lanes.get(Math.floorMod(patientId.hashCode(), lanes.size()));
+    }
+
+    private void reserve(Lane lane) {
+        if (!running) {
+            rejected.increment();
+            throw new ServiceBusyException("Alert evaluation is shutting down; try again shortly");
+        }
+        try {
+            if (lane.slots.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        busy.increment();
+        throw new ServiceBusyException("Alert evaluation is saturated; try again shortly");
+    }
+
+    private void enqueue(Lane lane, Task task) {
+        lane.queue.add(task);
+        submitted.increment();
+    }
+
+    private void drain(Lane lane) {
+        List<Task> held = new ArrayList<>();
+        List<Task> ready = new ArrayList<>();
+        long wait = IDLE_POLL_NANOS;
+        while (running || !lane.queue.isEmpty() || !held.isEmpty()) {
+            try {
+                Task first = lane.queue.poll(wait, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    held.add(first);
+                    lane.queue.drainTo(held);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown interrupts a worker that overran the timeout; what the lane holds is still evaluated
+                if (running) {
+                    continue;
+                }
+                lane.queue.drainTo(held);
+            }
+
+            // A patient's days wait until the earliest of them has been held for the reorder delay
+            held.sort(EVALUATION_ORDER);
+            long now = System.nanoTime();
+            wait = IDLE_POLL_NANOS;
+            Long waiting = null;
+            int kept = 0;
+            for (Task task : held) {
+                long ripeIn = task.enqueuedAt + reorderNanos - now;
+                if (task.log.getPatientId().equals(waiting)) {
+                    held.set(kept++, task);
+                } else if (running && ripeIn > 0) {
+                    waiting = task.log.getPatientId();
+                    wait = Math.min(wait, ripeIn);
+                    held.set(kept++, task);
+                } else {
+                    ready.add(task);
+                }
+            }
+            held.subList(kept, held.size()).clear();
+            evaluate(lane, ready);
+            ready.clear();
+        }
+    }
+
+    private void evaluate(Lane lane, List<Task> batch) {
+        inFlight.addAndGet(batch.size());
+        for (Task task : batch) {
+            lag.record(System.nanoTime() - task.enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                alertEvaluator.evaluate(task.log, task.patient);
+            } catch (RuntimeException e) {
+                failed.increment();
+                logger.error("Alert evaluation failed for log {}", task.log.getId(), e);
+            } finally {
+                inFlight.decrementAndGet();
+                lane.slots.release();
+            }
+        }
+    }
+
+    /**
+     * Stops taking logs and waits for the workers to evaluate what they hold.
+     * Workers still busy at the timeout are interrupted and then awaited, so
+     * every committed log is evaluated before the sink shuts down.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+        for (Thread worker : workers) {
+            if (worker.isAlive()) {
+                logger.warn("Alert pipeline worker {} overran the shutdown timeout; interrupting it", worker.getName());
+                worker.interrupt();
+            }
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private static final class Lane {
+        private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+        private final Semaphore slots;
+
+        private Lane(int capacity) {
+            this.slots = new Semaphore(capacity);
+        }
+    }
+
+    private static final class Task {
+        private final DailySymptomLog log;
+        private final PatientProfile patient;
+        private final long enqueuedAt = System.nanoTime();
+
+        private Task(DailySymptomLog log, PatientProfile patient) {
+            this.log = log;
+            this.patient = patient;
+        }
+    }
+}
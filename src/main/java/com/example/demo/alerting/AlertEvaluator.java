@@ -0,0 +1,69 @@
+package com.example.demo.alerting;
+
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.metrics.StageMetrics;
+import com.example.demo.model.PatientProfile;
+import org.springframework.stereotype.Component;
+
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class AlertEvaluator {
+
+    private final RecoveryCurveIndex recoveryCurveIndex;
+    private final DeviationRuleEngine deviationRuleEngine;
+    private final PatientWindowStore patientWindowStore;
+    private final AlertWriteBehindSink alertWriteBehindSink;
+    private final StageMetrics stageMetrics;
+
+    public AlertEvaluator(RecoveryCurveIndex recoveryCurveIndex, DeviationRuleEngine deviationRuleEngine, PatientWindowStore patientWindowStore,
+                          AlertWriteBehindSink alertWriteBehindSink, StageMetrics stageMetrics) {
+        this.recoveryCurveIndex = recoveryCurveIndex;
+        this.deviationRuleEngine = deviationRuleEngine;
+        this.patientWindowStore = patientWindowStore;
+        this.alertWriteBehindSink = alertWriteBehindSink;
+        this.stageMetrics = stageMetrics;
+    }
+
+    public List<ClinicalAlertRecord> evaluate(DailySymptomLog log, PatientProfile patient) {
+        long started = System.nanoTime();
+        String surgeryType = patient.getSurgeryType();
+        long daysSinceSurgery = ChronoUnit.DAYS.between(patient.getCreatedAt().toLocalDate(), log.getLogDate());
+        CurveSeries curve = recoveryCurveIndex.get(surgeryType);
+        long stageStarted = stageMetrics.stage(StageMetrics.ALERT_EVALUATION, "curve_fetch", surgeryType, started);
+
+        // The day is recorded in the patient's window even when the curve does not cover it
+        CompiledRuleSet rules = deviationRuleEngine.current();
+        List<ClinicalAlertRecord> windowAlerts = List.of();
+        if (rules.maxWindowDays() > 0) {
+            windowAlerts = patientWindowStore.recordAndEvaluate(log, patient, curve, daysSinceSurgery, rules);
+            stageStarted = stageMetrics.stage(StageMetrics.ALERT_EVALUATION, "window_evaluation", surgeryType, stageStarted);
+        }
+        // Trend rules only need logged levels, so their alerts stand without a curve
+        if (!curve.covers(daysSinceSurgery) && windowAlerts.isEmpty()) {
+            stageMetrics.complete(StageMetrics.ALERT_EVALUATION, surgeryType, curve.length() == 0 ? "no_curve" : "outside_curve", started);
+            return List.of();
+        }
+
+        List<ClinicalAlertRecord> alerts = windowAlerts;
+        if (curve.covers(daysSinceSurgery)) {
+            alerts = rules.evaluate(log, curve, (int) daysSinceSurgery);
+            if (!windowAlerts.isEmpty()) {
+                alerts = new ArrayList<>(alerts);
+                alerts.addAll(windowAlerts);
+            }
+            stageStarted = stageMetrics.stage(StageMetrics.ALERT_EVALUATION, "rule_evaluation", surgeryType, stageStarted);
+        }
+        if (alerts.isEmpty()) {
+            stageMetrics.complete(StageMetrics.ALERT_EVALUATION, surgeryType, "no_alert", started);
+            return alerts;
+        }
+        alertWriteBehindSink.submit(alerts);
+        stageMetrics.stage(StageMetrics.ALERT_EVALUATION, "alert_submit", surgeryType, stageStarted);
+        stageMetrics.complete(StageMetrics.ALERT_EVALUATION, surgeryType, "alert_fired", started);
+        return alerts;
+    }
+}
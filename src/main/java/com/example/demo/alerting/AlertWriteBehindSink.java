@@ -0,0 +1,191 @@
+package com.example.demo.alerting;
+
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.service.ClinicalAlertService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers generated alerts and stores them in batches. Alerts that do not fit
+ * the buffer within the offer timeout are saved on the producer's thread.
+ */
+@Component
+public class AlertWriteBehindSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertWriteBehindSink.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ClinicalAlertService clinicalAlertService;
+    private final BlockingQueue<ClinicalAlertRecord> buffer;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final Timer flushLatency;
+    private final DistributionSummary flushSize;
+    private final Counter overflow;
+    private final Counter lost;
+
+    public AlertWriteBehindSink(ClinicalAlertService clinicalAlertService, MeterRegistry meterRegistry,
+                                @Value("${alerts.sink.batch-size:100}") int batchSize,
+                                @Value("${alerts.sink.flush-interval-ms:200}") long flushIntervalMillis,
+                                @Value("${alerts.sink.buffer-capacity:5000}") int bufferCapacity,
+                                @Value("${alerts.sink.offer-timeout-ms:1000}") long offerTimeoutMillis,
+                                @Value("${alerts.sink.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis) {
+        this.clinicalAlertService = clinicalAlertService;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        // Not a daemon, so the JVM does not exit in the middle of a flush
+        this.flusher = new Thread(this::run, "alert-sink-flusher");
+
+        this.flushLatency = Timer.builder("alerts.sink.flush")
+                .description("Time to store one batch of alerts")
+                .register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("alerts.sink.flush.size")
+                .description("Alerts stored per flush")
+                .register(meterRegistry);
+        this.overflow = meterRegistry.counter("alerts.sink.overflow");
+        this.lost = meterRegistry.counter("alerts.sink.lost");
+        Gauge.builder("alerts.sink.buffer.depth", buffer, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+    }
+
+    public void submit(List<ClinicalAlertRecord> alerts) {
+        List<ClinicalAlertRecord> rejected = null;
+        for (ClinicalAlertRecord alert : alerts) {
+            boolean accepted = false;
+            if (running) {
+                try {
+                    accepted = buffer.offer(alert, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (!accepted) {
+                if (rejected == null) {
+                    rejected = new ArrayList<>();
+                }
+                rejected.add(alert);
+            }
+        }
+        if (rejected != null) {
+            overflow.increment(rejected.size());
+            flush(rejected);
+        }
+    }
+
+    public int bufferDepth() {
+        return buffer.size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("bufferDepth", buffer.size());
+        stats.put("bufferCapacity", buffer.size() + buffer.remainingCapacity());
+        stats.put("flushes", flushLatency.count());
+        stats.put("meanFlushSize", flushSize.mean());
+        stats.put("maxFlushSize", flushSize.max());
+        stats.put("meanFlushMillis", flushLatency.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxFlushMillis", flushLatency.max(TimeUnit.MILLISECONDS));
+        stats.put("overflow", (long) overflow.count());
+        stats.put("lost", (long) lost.count());
+        return stats;
+    }
+
+    private void run() {
+        List<ClinicalAlertRecord> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                ClinicalAlertRecord first = buffer.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    ClinicalAlertRecord next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Treated as a shutdown request; the loop keeps going until the buffer is empty
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<ClinicalAlertRecord> batch) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            long started = System.nanoTime();
+            try {
+                clinicalAlertService.recordAlerts(batch);
+                flushLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                flushSize.record(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Failed to store {} alerts (attempt {} of {})", batch.size(), attempt, MAX_ATTEMPTS, e);
+                // A failed batch may have had IDs assigned before the rollback
+                batch.forEach(alert -> alert.setId(null));
+            }
+        }
+        lost.increment(batch.size());
+        logger.error("Giving up on {} alerts after {} attempts", batch.size(), MAX_ATTEMPTS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // The flusher notices within one flush interval and drains the buffer before exiting
+        running = false;
+        flusher.join(Math.max(1, shutdownTimeoutMillis));
+        if (!flusher.isAlive()) {
+            return;
+        }
+        List<ClinicalAlertRecord> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        logger.warn("Alert sink did not drain within {} ms; saving {} buffered alerts on the shutdown thread",
+                shutdownTimeoutMillis, remaining.size());
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            flush(remaining.subList(from, Math.min(remaining.size(), from + batchSize)));
+        }
+        // The flush in flight gives up after its last attempt
+        flusher.join();
+    }
+}
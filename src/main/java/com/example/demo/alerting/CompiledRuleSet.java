@@ -0,0 +1,213 @@
+package com.example.demo.alerting;
+
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.DeviationRule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the active deviation rules, grouped by parameter and
+ * sorted by threshold. Evaluating a log walks each group only as far as the
+ * deviation exceeds the thresholds. Rules with a window condition are kept
+ * apart and checked against the patient's {@link PatientWindow}.
+ */
+public final class CompiledRuleSet {
+
+    private static final SymptomParameter[] PARAMETERS = SymptomParameter.values();
+
+    public static final int MAX_WINDOW_DAYS = 31;
+
+    public static final CompiledRuleSet EMPTY = compile(List.of());
+
+    private final int[][] thresholds = new int[PARAMETERS.length][];
+    private final String[][] severities = new String[PARAMETERS.length][];
+    private final List<WindowRule> windowRules = new ArrayList<>();
+    private final List<String> ignoredRuleCodes = new ArrayList<>();
+    private final int ruleCount;
+    private final int maxWindowDays;
+
+    private CompiledRuleSet(List<DeviationRule> rules) {
+        List<List<DeviationRule>> grouped = new ArrayList<>();
+        for (int i = 0; i < PARAMETERS.length; i++) {
+            grouped.add(new ArrayList<>());
+        }
+        for (DeviationRule rule : rules) {
+            SymptomParameter parameter = SymptomParameter.parse(rule.getParameter());
+            RuleCondition condition = RuleCondition.parse(rule.getConditionType());
+            if (parameter == null || condition == null || rule.getThreshold() == null) {
+                ignoredRuleCodes.add(rule.getRuleCode());
+                continue;
+            }
+            if (condition.windowed()) {
+                Integer days = rule.getWindowDays();
+                if (days == null || days < 2 || days > MAX_WINDOW_DAYS) {
+                    ignoredRuleCodes.add(rule.getRuleCode());
+                    continue;
+                }
+                windowRules.add(new WindowRule(parameter, condition, days, rule.getThreshold(), rule.getSeverity()));
+                continue;
+            }
+            grouped.get(parameter.ordinal()).add(rule);
+        }
+
+        int longest = 0;
+        for (WindowRule rule : windowRules) {
+            longest = Math.max(longest, rule.days);
+        }
+        this.maxWindowDays = longest;
+
+        int count = windowRules.size();
+        for (int p = 0; p < PARAMETERS.length; p++) {
+            List<DeviationRule> group = grouped.get(p);
+            group.sort(Comparator.comparing(DeviationRule::getThreshold));
+            thresholds[p] = new int[group.size()];
+            severities[p] = new String[group.size()];
+            for (int i = 0; i < group.size(); i++) {
+                thresholds[p][i] = group.get(i).getThreshold();
+                severities[p][i] = group.get(i).getSeverity();
+            }
+            count += group.size();
+        }
+        this.ruleCount = count;
+    }
+
+    public static CompiledRuleSet compile(List<DeviationRule> activeRules) {
+        return new CompiledRuleSet(activeRules);
+    }
+
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    public List<String> ignoredRuleCodes() {
+        return ignoredRuleCodes;
+    }
+
+    /** Days of history the window rules need, or 0 when there are none. */
+    public int maxWindowDays() {
+        return maxWindowDays;
+    }
+
+    /**
+     * Returns one alert per rule whose threshold the log exceeds on the given
+     * day of the curve. The caller must check that the curve covers the day.
+     */
+    public List<ClinicalAlertRecord> evaluate(DailySymptomLog log, CurveSeries curve, int day) {
+        List<ClinicalAlertRecord> alerts = null;
+        for (SymptomParameter parameter : PARAMETERS) {
+            int[] limits = thresholds[parameter.ordinal()];
+            if (limits.length == 0) {
+                continue;
+            }
+            int deviation = parameter.deviation(log, curve, day);
+            if (deviation == CurveSeries.MISSING) {
+                continue;
+            }
+            for (int i = 0; i < limits.length && deviation > limits[i]; i++) {
+                if (alerts == null) {
+                    alerts = new ArrayList<>(2);
+                }
+                alerts.add(ClinicalAlertRecord.builder()
+                        .patientId(log.getPatientId())
+                        .logId(log.getId())
+                        .alertType(parameter.alertType())
+                        .severity(severities[parameter.ordinal()][i])
+                        .message(parameter.message())
+                        .resolved(false)
+                        .firstSeenDate(log.getLogDate())
+                        .lastSeenDate(log.getLogDate())
+                        .occurrenceCount(1)
+                        .build());
+            }
+        }
+        return alerts == null ? List.of() : alerts;
+    }
+
+    /**
+     * Returns one alert per window rule met by the window of days ending at the
+     * log's date. The window must already hold the log. Days the curve does not
+     * cover carry no deviation, so a streak rule never matches across them while
+     * a trend rule, which compares logged levels only, still does.
+     */
+    public List<ClinicalAlertRecord> evaluateWindows(DailySymptomLog log, PatientWindow window) {
+        List<ClinicalAlertRecord> alerts = null;
+        long day = log.getLogDate().toEpochDay();
+        for (WindowRule rule : windowRules) {
+            if (!rule.matches(window, day)) {
+                continue;
+            }
+            if (alerts == null) {
+                alerts = new ArrayList<>(2);
+            }
+            alerts.add(ClinicalAlertRecord.builder()
+                    .patientId(log.getPatientId())
+                    .logId(log.getId())
+                    .alertType(rule.condition.alertType(rule.parameter))
+                    .severity(rule.severity)
+                    .message(rule.condition.message(rule.parameter, rule.days))
+                    .resolved(false)
+                    .firstSeenDate(log.getLogDate())
+                    .lastSeenDate(log.getLogDate())
+                    .occurrenceCount(1)
+                    .build());
+        }
+        return alerts == null ? List.of() : alerts;
+    }
+
+    private static final class WindowRule {
+        private final SymptomParameter parameter;
+        private final RuleCondition condition;
+        private final int days;
+        private final int threshold;
+        private final String severity;
+
+        private WindowRule(SymptomParameter parameter, RuleCondition condition, int days, int threshold, String severity) {
+            this.parameter = parameter;
+            this.condition = condition;
+            this.days = days;
+            this.threshold = threshold;
+            this.severity = severity;
+        }
+
+        private boolean matches(PatientWindow window, long lastDay) {
+            return switch (condition) {
+                case CONSECUTIVE_DEVIATION -> deviatesEveryDay(window, lastDay);
+                case DECLINING_TREND -> worsensEveryDay(window, lastDay);
+                case THRESHOLD -> false;
+            };
+        }
+
+        private boolean deviatesEveryDay(PatientWindow window, long lastDay) {
+            for (int k = 0; k < days; k++) {
+                int deviation = window.deviation(parameter, lastDay - k);
+                if (deviation == PatientWindow.MISSING || deviation <= threshold) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean worsensEveryDay(PatientWindow window, long lastDay) {
+            int latest = window.level(parameter, lastDay);
+            int newer = latest;
+            for (int k = 1; k < days; k++) {
+                if (newer == PatientWindow.MISSING) {
+                    return false;
+                }
+                int older = window.level(parameter, lastDay - k);
+                if (older == PatientWindow.MISSING || worsening(older, newer) <= 0) {
+                    return false;
+                }
+                newer = older;
+            }
+            return worsening(newer, latest) > threshold;
+        }
+
+        private int worsening(int from, int to) {
+            return parameter.higherIsBetter() ? from - to : to - from;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.alerting;
+
+import com.example.demo.model.RecoveryCurveProfile;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Expected recovery values for one surgery type, held as primitive arrays
+ * indexed by day number. Days without a curve entry hold {@link #MISSING}.
+ * Entries past {@link #MAX_DAY_NUMBER} are ignored, which bounds the arrays.
+ */
+public final class CurveSeries {
+
+    public static final int MISSING = Integer.MIN_VALUE;
+    /** Highest day number a curve entry may have; about ten years after surgery. */
+    public static final int MAX_DAY_NUMBER = 3650;
+    public static final CurveSeries EMPTY = new CurveSeries(new int[0], new int[0], new int[0]);
+
+    private final int[] pain;
+    private final int[] mobility;
+    private final int[] fatigue;
+
+    private CurveSeries(int[] pain, int[] mobility, int[] fatigue) {
+        this.pain = pain;
+        this.mobility = mobility;
+        this.fatigue = fatigue;
+    }
+
+    public static CurveSeries of(List<RecoveryCurveProfile> entries) {
+        int days = 0;
+        for (RecoveryCurveProfile entry : entries) {
+            if (inRange(entry.getDayNumber())) {
+                days = Math.max(days, entry.getDayNumber() + 1);
+            }
+        }
+        if (days == 0) {
+            return EMPTY;
+        }
+
+        int[] pain = new int[days];
+        int[] mobility = new int[days];
+        int[] fatigue = new int[days];
+        Arrays.fill(pain, MISSING);
+        Arrays.fill(mobility, MISSING);
+        Arrays.fill(fatigue, MISSING);
+        for (RecoveryCurveProfile entry : entries) {
+            Integer day = entry.getDayNumber();
+            if (!inRange(day)) {
+                continue;
+            }
+            pain[day] = valueOrMissing(entry.getExpectedPainLevel());
+            mobility[day] = valueOrMissing(entry.getExpectedMobilityLevel());
+            fatigue[day] = valueOrMissing(entry.getExpectedFatigueLevel());
+        }
+        return new CurveSeries(pain, mobility, fatigue);
+    }
+
+    public static boolean inRange(Integer dayNumber) {
+        return dayNumber != null && dayNumber >= 0 && dayNumber <= MAX_DAY_NUMBER;
+    }
+
+    private static int valueOrMissing(Integer value) {
+        return value == null ? MISSING : value;
+    }
+
+    public int length() {
+        return pain.length;
+    }
+
+    public boolean covers(long day) {
+        return day >= 0 && day < pain.length
+                && (pain[(int) day] != MISSING || mobility[(int) day] != MISSING || fatigue[(int) day] != MISSING);
+    }
+
+    public int expectedPain(int day) {
+        return pain[day];
+    }
+
+    public int expectedMobility(int day) {
+        return mobility[day];
+    }
+
+    public int expectedFatigue(int day) {
+        return fatigue[day];
+    }
+}
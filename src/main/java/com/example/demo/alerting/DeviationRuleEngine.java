@@ -0,0 +1,54 @@
+package com.example.demo.alerting;
+
+import com.example.demo.repository.DeviationRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the compiled form of the active deviation rules. The rule set is swapped
+ * in a single volatile write, so evaluations always see either the old or the
+ * new set in full.
+ */
+@Component
+public class DeviationRuleEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviationRuleEngine.class);
+
+    private final DeviationRuleRepository deviationRuleRepository;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile CompiledRuleSet ruleSet;
+
+    public DeviationRuleEngine(DeviationRuleRepository deviationRuleRepository) {
+        this.deviationRuleRepository = deviationRuleRepository;
+    }
+
+    public CompiledRuleSet current() {
+        CompiledRuleSet current = ruleSet;
+        return current != null ? current : rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public CompiledRuleSet rebuild() {
+        // Serialised so a slow rebuild cannot overwrite a newer one
+        rebuildLock.lock();
+        try {
+            CompiledRuleSet compiled = CompiledRuleSet.compile(deviationRuleRepository.findByActiveTrue());
+            if (!compiled.ignoredRuleCodes().isEmpty()) {
+                logger.warn("Ignoring deviation rules with unknown parameter or no threshold: {}", compiled.ignoredRuleCodes());
+            }
+            ruleSet = compiled;
+            return compiled;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.alerting;
+
+import com.example.demo.model.DailySymptomLog;
+
+import java.util.Arrays;
+
+/**
+ * The most recent days of one patient's levels and curve deviations, in
+ * primitive ring buffers indexed by epoch day. Recording a day only clears the
+ * slots the window slides past, so it costs at most the capacity whatever the
+ * length of the history. Not thread-safe; {@link PatientWindowStore} guards the
+ * live windows.
+ */
+public final class PatientWindow {
+
+    public static final int MISSING = CurveSeries.MISSING;
+
+    private static final SymptomParameter[] PARAMETERS = SymptomParameter.values();
+    private static final short EMPTY = Short.MIN_VALUE;
+
+    private final int capacity;
+    private final short[] levels;
+    private final short[] deviations;
+    private long lastDay = Long.MIN_VALUE;
+
+    public PatientWindow(int capacity) {
+        this.capacity = capacity;
+        this.levels = new short[PARAMETERS.length * capacity];
+        this.deviations = new short[PARAMETERS.length * capacity];
+        Arrays.fill(levels, EMPTY);
+        Arrays.fill(deviations, EMPTY);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Records the log's levels, and its deviations from the curve when the
+     * curve covers the day. Returns false when the day is older than the window.
+     */
+    public boolean record(DailySymptomLog log, CurveSeries curve, long daysSinceSurgery) {
+        int[] dayLevels = new int[PARAMETERS.length];
+        int[] dayDeviations = new int[PARAMETERS.length];
+        boolean covered = curve.covers(daysSinceSurgery);
+        for (SymptomParameter parameter : PARAMETERS) {
+            Integer level = parameter.value(log);
+            dayLevels[parameter.ordinal()] = level == null ? MISSING : level;
+            dayDeviations[parameter.ordinal()] = covered ? parameter.deviation(log, curve, (int) daysSinceSurgery) : MISSING;
+        }
+        return record(log.getLogDate().toEpochDay(), dayLevels, dayDeviations);
+    }
+
+    /**
+     * Records the levels and deviations logged on a day, replacing any earlier
+     * values for it. Returns false, recording nothing, when the day is older
+     * than the window.
+     */
+    public boolean record(long epochDay, int[] dayLevels, int[] dayDeviations) {
+        if (lastDay == Long.MIN_VALUE || epochDay > lastDay) {
+            long from = lastDay == Long.MIN_VALUE ? epochDay - capacity + 1 : Math.max(lastDay + 1, epochDay - capacity + 1);
+            for (long day = from; day <= epochDay; day++) {
+                for (int p = 0; p < PARAMETERS.length; p++) {
+                    levels[index(p, day)] = EMPTY;
+                    deviations[index(p, day)] = EMPTY;
+                }
+            }
+            lastDay = epochDay;
+        } else if (epochDay <= lastDay - capacity) {
+            return false;
+        }
+        for (int p = 0; p < PARAMETERS.length; p++) {
+            levels[index(p, epochDay)] = pack(dayLevels[p]);
+            deviations[index(p, epochDay)] = pack(dayDeviations[p]);
+        }
+        return true;
+    }
+
+    /** Returns the level logged on the day, or {@link #MISSING}. */
+    public int level(SymptomParameter parameter, long epochDay) {
+        return inWindow(epochDay) ? unpack(levels[index(parameter.ordinal(), epochDay)]) : MISSING;
+    }
+
+    /** Returns the deviation from the curve on the day, or {@link #MISSING}. */
+    public int deviation(SymptomParameter parameter, long epochDay) {
+        return inWindow(epochDay) ? unpack(deviations[index(parameter.ordinal(), epochDay)]) : MISSING;
+    }
+
+    private boolean inWindow(long epochDay) {
+        return lastDay != Long.MIN_VALUE && epochDay <= lastDay && epochDay > lastDay - capacity;
+    }
+
+    private int index(int parameter, long epochDay) {
+        return parameter * capacity + (int) Math.floorMod(epochDay, (long) capacity);
+    }
+
+    // Levels are small and deviations bounded by them, so a short holds both; out-of-range values saturate
+    private static short pack(int value) {
+        if (value == MISSING) {
+            return EMPTY;
+        }
+        return (short) Math.max(Short.MIN_VALUE + 1, Math.min(Short.MAX_VALUE, value));
+    }
+
+    private static int unpack(short value) {
+        return value == EMPTY ? MISSING : value;
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.demo.alerting;
+
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.PatientProfile;
+import com.example.demo.model.PatientRecoverySummary;
+import com.example.demo.repository.DailySymptomLogRepository;
+import com.example.demo.repository.PatientProfileRepository;
+import com.example.demo.repository.PatientRecoverySummaryRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Holds a {@link PatientWindow} per patient for the multi-day deviation rules.
+ *
+ * <p>A window is filled from the log table the first time a patient is seen
+ * after startup or eviction, and from then on each evaluated log updates it in
+ * place. On startup, patients whose recovery summary shows a log within the
+ * window are loaded in the background, a page at a time. Windows store levels
+ * and deviations rather than rule results, so rule changes apply immediately;
+ * curve changes drop them all.
+ */
+@Component
+public class PatientWindowStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientWindowStore.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final DailySymptomLogRepository dailySymptomLogRepository;
+    private final PatientProfileRepository patientProfileRepository;
+    private final PatientRecoverySummaryRepository summaryRepository;
+    private final RecoveryCurveIndex recoveryCurveIndex;
+    private final DeviationRuleEngine deviationRuleEngine;
+    private final Cache<Long, PatientWindow> windows;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final long maxPatients;
+    private final boolean warmUp;
+    private final int warmUpPageSize;
+
+    private final Counter hydrations;
+    private final Counter lateLogs;
+
+    public PatientWindowStore(DailySymptomLogRepository dailySymptomLogRepository, PatientProfileRepository patientProfileRepository,
+                              PatientRecoverySummaryRepository summaryRepository, RecoveryCurveIndex recoveryCurveIndex,
+                              DeviationRuleEngine deviationRuleEngine, MeterRegistry meterRegistry,
+                              @Value("${alerts.window.max-patients:200000}") long maxPatients,
+                              @Value("${alerts.window.idle-minutes:1440}") long idleMinutes,
+                              @Value("${alerts.window.warm-up:true}") boolean warmUp,
+                              @Value("${alerts.window.warm-up-page-size:500}") int warmUpPageSize) {
+        this.dailySymptomLogRepository = dailySymptomLogRepository;
+        this.patientProfileRepository = patientProfileRepository;
+        this.summaryRepository = summaryRepository;
+        this.recoveryCurveIndex = recoveryCurveIndex;
+        this.deviationRuleEngine = deviationRuleEngine;
+        this.maxPatients = maxPatients;
+        this.warmUp = warmUp;
+        this.warmUpPageSize = warmUpPageSize;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maxPatients)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, windows, "alert-windows");
+        this.hydrations = meterRegistry.counter("alerts.window.hydrations");
+        this.lateLogs = meterRegistry.counter("alerts.window.late.logs");
+    }
+
+    /**
+     * Records the log in its patient's window and returns the alerts of the
+     * window rules. Trend rules are checked on every day; streak rules only
+     * match days the curve covers, as other days hold no deviation.
+     */
+    public List<ClinicalAlertRecord> recordAndEvaluate(DailySymptomLog log, PatientProfile patient, CurveSeries curve,
+                                                       long daysSinceSurgery, CompiledRuleSet rules) {
+        int capacity = rules.maxWindowDays();
+        if (capacity == 0) {
+            return List.of();
+        }
+        Long patientId = log.getPatientId();
+        ReentrantLock lock = lockFor(patientId);
+        lock.lock();
+        try {
+            PatientWindow window = windows.getIfPresent(patientId);
+            if (window == null || window.capacity() < capacity) {
+                window = hydrate(patient, curve, capacity, log.getLogDate());
+                windows.put(patientId, window);
+            }
+            if (!window.record(log, curve, daysSinceSurgery)) {
+                // Older than every day the window holds, e.g. a late backfill
+                lateLogs.increment();
+                return List.of();
+            }
+            return rules.evaluateWindows(log, window);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(Long patientId) {
+        windows.invalidate(patientId);
+    }
+
+    public void invalidateAll() {
+        windows.invalidateAll();
+    }
+
+    public long size() {
+        return windows.estimatedSize();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        int capacity = deviationRuleEngine.current().maxWindowDays();
+        if (!warmUp || capacity == 0) {
+            return;
+        }
+        Thread thread = new Thread(() -> warmUp(capacity), "alert-window-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void warmUp(int capacity) {
+        long started = System.currentTimeMillis();
+        LocalDate since = LocalDate.now().minusDays(capacity - 1L);
+        long loaded = 0;
+        long afterId = 0L;
+        try {
+            List<PatientRecoverySummary> page;
+            do {
+                page = summaryRepository.findByLastLogDateGreaterThanEqualAndPatientIdGreaterThanOrderByPatientIdAsc(
+                        since, afterId, PageRequest.of(0, warmUpPageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                loaded += warmUpPage(page, capacity);
+                afterId = page.get(page.size() - 1).getPatientId();
+            } while (page.size() == warmUpPageSize && loaded < maxPatients);
+            logger.info("Loaded day windows for {} recently active patients in {} ms", loaded, System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            // Patients not loaded here are filled from the log table on their next log
+            logger.warn("Day window warm-up stopped after {} patients", loaded, e);
+        }
+    }
+
+    private int warmUpPage(List<PatientRecoverySummary> page, int capacity) {
+        List<Long> ids = page.stream().map(PatientRecoverySummary::getPatientId).toList();
+        Map<Long, PatientProfile> patients = patientProfileRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(PatientProfile::getId, Function.identity()));
+        LocalDate from = page.stream().map(PatientRecoverySummary::getLastLogDate).min(Comparator.naturalOrder()).get()
+                .minusDays(capacity - 1L);
+        LocalDate to = page.stream().map(PatientRecoverySummary::getLastLogDate).max(Comparator.naturalOrder()).get();
+        Map<Long, List<DailySymptomLog>> logsByPatient = dailySymptomLogRepository.findByPatientIdInAndLogDateBetween(ids, from, to)
+                .stream()
+                .collect(Collectors.groupingBy(DailySymptomLog::getPatientId));
+
+        int loaded = 0;
+        for (PatientRecoverySummary summary : page) {
+            PatientProfile patient = patients.get(summary.getPatientId());
+            if (patient == null || patient.getCreatedAt() == null) {
+                continue;
+            }
+            PatientWindow window = fill(patient, recoveryCurveIndex.get(patient.getSurgeryType()), capacity,
+                    logsByPatient.getOrDefault(patient.getId(), List.of()));
+            ReentrantLock lock = lockFor(patient.getId());
+            lock.lock();
+            try {
+                // A window built from a live log in the meantime is at least as current
+                if (windows.asMap().putIfAbsent(patient.getId(), window) == null) {
+                    loaded++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return loaded;
+    }
+
+    // Covers the most recent days on record, which may be later than the log being evaluated
+    private PatientWindow hydrate(PatientProfile patient, CurveSeries curve, int capacity, LocalDate logDate) {
+        hydrations.increment();
+        LocalDate last = dailySymptomLogRepository.findFirstByPatientIdOrderByLogDateDesc(patient.getId())
+                .map(DailySymptomLog::getLogDate)
+                .filter(date -> date.isAfter(logDate))
+                .orElse(logDate);
+        List<DailySymptomLog> logs = dailySymptomLogRepository.findByPatientIdAndLogDateBetween(
+                patient.getId(), last.minusDays(capacity - 1L), last);
+        return fill(patient, curve, capacity, logs);
+    }
+
+    private PatientWindow fill(PatientProfile patient, CurveSeries curve, int capacity, List<DailySymptomLog> logs) {
+        PatientWindow window = new PatientWindow(capacity);
+        List<DailySymptomLog> ordered = new ArrayList<>(logs);
+        ordered.sort(Comparator.comparing(DailySymptomLog::getLogDate));
+        LocalDate surgeryDate = patient.getCreatedAt().toLocalDate();
+        for (DailySymptomLog log : ordered) {
+            window.record(log, curve, ChronoUnit.DAYS.between(surgeryDate, log.getLogDate()));
+        }
+        return window;
+    }
+
+    private ReentrantLock lockFor(Long patientId) {
+        return locks[Math.floorMod(patientId.hashCode(), LOCK_STRIPES)];
+    }
+}
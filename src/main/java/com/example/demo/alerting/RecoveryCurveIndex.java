@@ -0,0 +1,52 @@
+package com.example.demo.alerting;
+
+import com.example.demo.model.RecoveryCurveProfile;
+import com.example.demo.repository.RecoveryCurveProfileRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory index of recovery curves by surgery type. Series are loaded on
+ * startup or on first use and replaced whenever a curve entry is added.
+ */
+@Component
+public class RecoveryCurveIndex {
+
+    private final RecoveryCurveProfileRepository recoveryCurveProfileRepository;
+    private final Map<String, CurveSeries> seriesBySurgeryType = new ConcurrentHashMap<>();
+
+    public RecoveryCurveIndex(RecoveryCurveProfileRepository recoveryCurveProfileRepository) {
+        this.recoveryCurveProfileRepository = recoveryCurveProfileRepository;
+    }
+
+    public CurveSeries get(String surgeryType) {
+        if (surgeryType == null) {
+            return CurveSeries.EMPTY;
+        }
+        return seriesBySurgeryType.computeIfAbsent(surgeryType, this::load);
+    }
+
+    public void reload(String surgeryType) {
+        if (surgeryType != null) {
+            seriesBySurgeryType.put(surgeryType, load(surgeryType));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadAll() {
+        Map<String, List<RecoveryCurveProfile>> curves = recoveryCurveProfileRepository.findAll().stream()
+                .filter(c -> c.getSurgeryType() != null)
+                .collect(Collectors.groupingBy(RecoveryCurveProfile::getSurgeryType));
+        curves.forEach((surgeryType, entries) -> seriesBySurgeryType.put(surgeryType, CurveSeries.of(entries)));
+    }
+
+    private CurveSeries load(String surgeryType) {
+        return CurveSeries.of(recoveryCurveProfileRepository.findBySurgeryTypeOrderByDayNumberAsc(surgeryType));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.alerting;
+
+import java.util.Locale;
+
+/**
+ * How a deviation rule is checked. {@link #THRESHOLD} looks at the logged day
+ * alone; the others look at the window of {@code windowDays} consecutive days
+ * ending at it and need a log for every one of those days.
+ */
+public enum RuleCondition {
+
+    /** The deviation from the curve exceeds the threshold on the day. */
+    THRESHOLD("", "%1$s"),
+    /** The deviation from the curve exceeds the threshold on every day of the window. */
+    CONSECUTIVE_DEVIATION("_STREAK", "%1$s on %3$d consecutive days"),
+    /** The level got worse from each day to the next, by more than the threshold in total. */
+    DECLINING_TREND("_TREND", "%2$s level worsened every day for %3$d days");
+
+    private final String alertTypeSuffix;
+    // Arguments: the parameter's single-day message, its name and the window length
+    private final String messageFormat;
+
+    RuleCondition(String alertTypeSuffix, String messageFormat) {
+        this.alertTypeSuffix = alertTypeSuffix;
+        this.messageFormat = messageFormat;
+    }
+
+    public boolean windowed() {
+        return this != THRESHOLD;
+    }
+
+    public String alertType(SymptomParameter parameter) {
+        return parameter.alertType() + alertTypeSuffix;
+    }
+
+    public String message(SymptomParameter parameter, int windowDays) {
+        String name = parameter.name().charAt(0) + parameter.name().substring(1).toLowerCase(Locale.ROOT);
+        return String.format(messageFormat, parameter.message(), name, windowDays);
+    }
+
+    /**
+     * Parses a stored condition type; a missing value means {@link #THRESHOLD}
+     * and an unknown one returns null.
+     */
+    public static RuleCondition parse(String value) {
+        if (value == null || value.isBlank()) {
+            return THRESHOLD;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.alerting;
+
+import com.example.demo.model.DailySymptomLog;
+
+import java.util.Locale;
+
+/**
+ * Symptom parameters a deviation rule can watch. Deviation is measured in the
+ * direction that means a worse recovery: pain and fatigue above the curve,
+ * mobility below it.
+ */
+public enum SymptomParameter {
+
+    PAIN("PAIN_SPIKE", "Pain level exceeded expected"),
+    MOBILITY("MOBILITY_DROP", "Mobility level fell below expected"),
+    FATIGUE("FATIGUE_SPIKE", "Fatigue level exceeded expected");
+
+    private final String alertType;
+    private final String message;
+
+    SymptomParameter(String alertType, String message) {
+        this.alertType = alertType;
+        this.message = message;
+    }
+
+    public String alertType() {
+        return alertType;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    public static SymptomParameter parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public boolean higherIsBetter() {
+        return this == MOBILITY;
+    }
+
+    public Integer value(DailySymptomLog log) {
+        return switch (this) {
+            case PAIN -> log.getPainLevel();
+            case MOBILITY -> log.getMobilityLevel();
+            case FATIGUE -> log.getFatigueLevel();
+        };
+    }
+
+    public int expected(CurveSeries curve, int day) {
+        return switch (this) {
+            case PAIN -> curve.expectedPain(day);
+            case MOBILITY -> curve.expectedMobility(day);
+            case FATIGUE -> curve.expectedFatigue(day);
+        };
+    }
+
+    /**
+     * Returns how far the logged value is on the wrong side of the curve, or
+     * {@link CurveSeries#MISSING} when either value is unknown.
+     */
+    public int deviation(DailySymptomLog log, CurveSeries curve, int day) {
+        Integer actual = value(log);
+        int expected = expected(curve, day);
+        if (actual == null || expected == CurveSeries.MISSING) {
+            return CurveSeries.MISSING;
+        }
+        return this == MOBILITY ? expected - actual : actual - expected;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.TableStructure;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves table-backed ID sequences past the IDs already in use.
+ *
+ * <p>On MySQL, Hibernate emulates each entity sequence with a one-row table that
+ * starts at 1, so databases created while the entities used IDENTITY keys would
+ * hand out IDs that already exist. With the pooled optimizer the first block
+ * starts {@code allocationSize - 1} below the stored value, so the value is moved
+ * to at least {@code max(id) + allocationSize + 1}. The update only ever moves a
+ * sequence forward, so it is safe with several nodes starting at once.
+ * Sequences and allocation sizes are read from the entity mappings; databases
+ * with native sequences are skipped.
+ */
+@Component
+public class IdSequenceAligner {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionFactoryImplementor sessionFactory;
+
+    // The EntityManagerFactory is injected so this runs after Hibernate has updated the schema
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    @PostConstruct
+    public void align() {
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.getGenerator() instanceof SequenceStyleGenerator generator
+                    && generator.getDatabaseStructure() instanceof TableStructure structure
+                    && persister instanceof AbstractEntityPersister entity) {
+                align(entity.getTableName(), structure.getPhysicalName().render(), structure.getIncrementSize());
+            }
+        });
+    }
+
+    private void align(String table, String sequence, int allocationSize) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+        if (maxId == null || maxId == 0) {
+            return;
+        }
+        long floor = maxId + allocationSize + 1;
+        int updated = jdbcTemplate.update("update " + sequence + " set next_val = ? where next_val < ?", floor, floor);
+        if (updated > 0) {
+            logger.info("Moved ID sequence {} to {} past existing rows in {}", sequence, floor, table);
+        }
+    }
+}
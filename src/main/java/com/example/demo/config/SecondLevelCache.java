@@ -0,0 +1,65 @@
+package com.example.demo.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Explicit eviction from, and hit and miss statistics for, the second-level
+ * cache regions declared in {@link SecondLevelCacheConfig}.
+ */
+@Component
+public class SecondLevelCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void evict(Class<?> entityType, Object id) {
+        entityManagerFactory.getCache().evict(entityType, id);
+    }
+
+    public void evictQueries(String region) {
+        sessionFactory().getCache().evictQueryRegion(region);
+    }
+
+    public Map<String, Object> stats() {
+        Statistics statistics = sessionFactory().getStatistics();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        stats.put("entityHits", statistics.getSecondLevelCacheHitCount());
+        stats.put("entityMisses", statistics.getSecondLevelCacheMissCount());
+        stats.put("entityPuts", statistics.getSecondLevelCachePutCount());
+        stats.put("queryHits", statistics.getQueryCacheHitCount());
+        stats.put("queryMisses", statistics.getQueryCacheMissCount());
+        stats.put("queryPuts", statistics.getQueryCachePutCount());
+        Map<String, Object> regions = new TreeMap<>();
+        for (String name : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            regionStats.put("hits", region.getHitCount());
+            regionStats.put("misses", region.getMissCount());
+            regionStats.put("puts", region.getPutCount());
+            long lookups = region.getHitCount() + region.getMissCount();
+            regionStats.put("hitRatio", lookups == 0 ? 0.0 : Math.round(1000.0 * region.getHitCount() / lookups) / 1000.0);
+            regions.put(name, regionStats);
+        }
+        stats.put("regions", regions);
+        return stats;
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regions of the Hibernate second-level cache, held in process by Caffeine.
+ *
+ * <p>Every region is created here with a size bound and, except for the update
+ * timestamps, a time-to-live, so an entry changed outside this instance is
+ * served stale for at most that long. Hibernate is set to fail on any region
+ * not declared here rather than create an unbounded one.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String CURVE_REGION = "recovery-curve";
+    public static final String RULE_REGION = "deviation-rule";
+    public static final String PATIENT_REGION = "patient-profile";
+    public static final String REFERENCE_QUERY_REGION = "reference-queries";
+
+    private static final String DEFAULT_QUERY_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    private static final String TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${jpa.second-level-cache.reference.max-entries:10000}") long referenceMaxEntries,
+                                              @Value("${jpa.second-level-cache.reference.ttl-minutes:60}") long referenceTtlMinutes,
+                                              @Value("${jpa.second-level-cache.patients.max-entries:50000}") long patientMaxEntries,
+                                              @Value("${jpa.second-level-cache.patients.ttl-minutes:30}") long patientTtlMinutes) {
+        // A provider of our own, so the manager and its regions are not shared with other contexts in the JVM
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        cacheManager.createCache(CURVE_REGION, region(referenceMaxEntries, referenceTtlMinutes));
+        cacheManager.createCache(RULE_REGION, region(referenceMaxEntries, referenceTtlMinutes));
+        cacheManager.createCache(REFERENCE_QUERY_REGION, region(referenceMaxEntries, referenceTtlMinutes));
+        cacheManager.createCache(DEFAULT_QUERY_REGION, region(referenceMaxEntries, referenceTtlMinutes));
+        cacheManager.createCache(PATIENT_REGION, region(patientMaxEntries, patientTtlMinutes));
+        // One entry per table; must outlive the query results it invalidates
+        cacheManager.createCache(TIMESTAMPS_REGION, region(1000, 0));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put("hibernate.cache.region.factory_class", ConfigSettings.SIMPLE_FACTORY_NAME);
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxEntries, long ttlMinutes) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        if (ttlMinutes > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MINUTES.toNanos(ttlMinutes)));
+        }
+        // Hibernate stores immutable entry snapshots, so copying them on every read is wasted work
+        configuration.setStoreByValue(false);
+        return configuration;
+    }
+}
@@ -1,5 +1,10 @@
 package com.example.demo.config;
 
+import com.example.demo.idempotency.IdempotencyFilter;
+import com.example.demo.idempotency.IdempotencyStore;
+import com.example.demo.security.JwtAuthenticationFilter;
+import com.example.demo.security.JwtTokenVerifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,6 +15,8 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
@@ -26,13 +33,19 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtTokenVerifier jwtTokenVerifier, IdempotencyStore idempotencyStore,
+                                           @Value("${idempotency.max-request-bytes:1048576}") int maxIdempotentRequestBytes) throws Exception {
         http.csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/auth/**", "/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/swagger-resources/**", "/webjars/**", "/h2-console/**").permitAll()
+                .requestMatchers("/api/auth/**", "/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/swagger-resources/**", "/webjars/**", "/h2-console/**", "/actuator/health").permitAll()
                 .anyRequest().authenticated()
             );
+
+        // Filters are created here rather than as beans so the servlet container does not register them a second time
+        http.addFilterBefore(new JwtAuthenticationFilter(jwtTokenVerifier), UsernamePasswordAuthenticationFilter.class);
+        // Runs after authorization so stored responses are scoped to an authenticated caller
+        http.addFilterAfter(new IdempotencyFilter(idempotencyStore, maxIdempotentRequestBytes), AuthorizationFilter.class);
         
         // Allow H2 console frames and disable CORS for development
         http.headers(headers -> headers.frameOptions(frameOptions -> frameOptions.disable()));
@@ -0,0 +1,94 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Support for running on virtual threads (the {@code virtual} profile).
+ *
+ * <p>Spring Boot moves Tomcat, the async executor and the scheduler onto
+ * virtual threads when {@code spring.threads.virtual.enabled} is set and the
+ * runtime is Java 21+. This adds the guardrails for that mode: an optional cap on
+ * connection checkouts by virtual threads, so unbounded request concurrency
+ * cannot exhaust the pool, and a monitor for virtual threads pinning their carrier.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    private final Environment environment;
+
+    public VirtualThreadConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportThreadingMode() {
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (requested && !VirtualThreads.isSupported()) {
+            logger.warn("spring.threads.virtual.enabled is set but this runtime ({}) has no virtual threads; using platform threads",
+                    Runtime.version());
+        } else if (requested) {
+            logger.info("Handling requests, async work and scheduled jobs on virtual threads");
+        }
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                                            @Value("${virtual-threads.pinning.threshold-ms:20}") long thresholdMillis) {
+        return new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(thresholdMillis));
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "db.concurrency-limit.enabled", havingValue = "true")
+    static class DatabaseConcurrencyLimit {
+
+        // Platform threads are not limited and keep the connections above the permits
+        @Bean
+        static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(Environment environment) {
+            int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+            int permits = environment.getProperty("db.concurrency-limit.permits", Integer.class, poolSize - 2);
+            if (permits < 1 || permits >= poolSize) {
+                throw new IllegalArgumentException("db.concurrency-limit.permits must be between 1 and "
+                        + (poolSize - 1) + " (below spring.datasource.hikari.maximum-pool-size)");
+            }
+            long acquireTimeoutMillis = environment.getProperty("db.concurrency-limit.acquire-timeout-ms", Long.class, 5000L);
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                        logger.info("Limiting virtual threads on data source '{}' to {} concurrent connections", beanName, permits);
+                        return new ConcurrencyLimitedDataSource(dataSource, permits, acquireTimeoutMillis);
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        @Bean
+        MeterBinder databasePermitMetrics(DataSource dataSource) {
+            return registry -> {
+                if (dataSource instanceof ConcurrencyLimitedDataSource limited) {
+                    Gauge.builder("db.permits.active", limited, ConcurrencyLimitedDataSource::activePermits).register(registry);
+                    Gauge.builder("db.permits.waiting", limited, ConcurrencyLimitedDataSource::waiting).register(registry);
+                }
+            };
+        }
+    }
+}
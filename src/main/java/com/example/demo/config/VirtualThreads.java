@@ -0,0 +1,56 @@
+package com.example.demo.config;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Looks up virtual thread support reflectively so the application still compiles
+ * and runs on Java 17; virtual threads are only used when the runtime is 21+.
+ *
+ * <p>Methods are looked up on the public {@code Thread.Builder} interfaces, not on
+ * the builder's runtime class, which lives in a package java.base does not open.
+ */
+public final class VirtualThreads {
+
+    private static final Method IS_VIRTUAL = isVirtualMethod();
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return factory("probe-").isPresent();
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_VIRTUAL.invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    public static Optional<ThreadFactory> factory(String namePrefix) {
+        try {
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            Method factory = builderType.getMethod("factory");
+            return Optional.of((ThreadFactory) factory.invoke(builder));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Method isVirtualMethod() {
+        try {
+            return Thread.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
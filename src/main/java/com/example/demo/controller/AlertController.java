@@ -1,19 +1,73 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CursorPage;
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.service.AlertBackfillService;
+import com.example.demo.service.ClinicalAlertService;
+import com.example.demo.service.RuntimeStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/alerts")
+@Tag(name = "Clinical Alerts", description = "Clinical alert APIs")
 public class AlertController {
 
+    @Autowired
+    private ClinicalAlertService clinicalAlertService;
+
+    @Autowired
+    private RuntimeStatsService runtimeStatsService;
+
+    @Autowired
+    private AlertBackfillService alertBackfillService;
+
     @GetMapping
-    public ResponseEntity<String> getAllAlerts() {
-        return ResponseEntity.ok("Alert service is running");
+    @Operation(summary = "Get alerts", description = "Retrieve alerts one page at a time, ordered by ID, optionally for one patient. Pass the returned nextCursor to fetch the following page.")
+    public ResponseEntity<CursorPage<ClinicalAlertRecord>> getAllAlerts(@RequestParam(required = false) Long patientId,
+                                                                        @RequestParam(required = false) String cursor,
+                                                                        @RequestParam(required = false) Integer size) {
+        CursorPage<ClinicalAlertRecord> alerts = clinicalAlertService.getAlertsPage(patientId, cursor, size);
+        return ResponseEntity.ok(alerts);
+    }
+
+    @PutMapping("/{id}/resolve")
+    @Operation(summary = "Resolve alert", description = "Mark an alert as resolved. Send an Idempotency-Key header to make retries safe.")
+    public ResponseEntity<ClinicalAlertRecord> resolveAlert(@PathVariable Long id) {
+        ClinicalAlertRecord alert = clinicalAlertService.resolveAlert(id);
+        return ResponseEntity.ok(alert);
+    }
+
+    @PostMapping("/backfill")
+    @Operation(summary = "Start alert backfill", description = "Re-evaluate every stored log against the current rules and curves in the background, creating missing alerts and removing unresolved ones that no longer apply. Resumes the unfinished run if there is one; a dry run only counts the changes.")
+    public ResponseEntity<Map<String, Object>> startBackfill(@RequestParam(defaultValue = "false") boolean dryRun) {
+        return ResponseEntity.accepted().body(alertBackfillService.start(dryRun));
+    }
+
+    @PostMapping("/backfill/pause")
+    @Operation(summary = "Pause alert backfill", description = "Stop the running backfill after the patients in progress; starting it again resumes from the checkpoints")
+    public ResponseEntity<Map<String, Object>> pauseBackfill() {
+        return ResponseEntity.ok(alertBackfillService.pause());
+    }
+
+    @GetMapping("/backfill")
+    @Operation(summary = "Alert backfill status", description = "Progress and alert changes of the latest backfill run")
+    public ResponseEntity<Map<String, Object>> backfillStatus() {
+        return ResponseEntity.ok(alertBackfillService.status());
     }
 
     @GetMapping("/health")
-    public ResponseEntity<String> health() {
-        return ResponseEntity.ok("Alert service health check");
+    @Operation(summary = "Alerting health", description = "Node status plus alert pipeline and write-behind sink statistics, and evaluation outcomes and latency by surgery type")
+    public ResponseEntity<Map<String, Object>> health() {
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", runtimeStatsService.status());
+        health.putAll(runtimeStatsService.alertingSnapshot());
+        return ResponseEntity.ok(health);
     }
-}
\ No newline at end of file
+}
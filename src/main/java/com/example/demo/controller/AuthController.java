@@ -4,6 +4,7 @@ import com.example.demo.dto.AuthRequest;
 import com.example.demo.dto.AuthResponse;
 import com.example.demo.dto.RegisterRequest;
 import com.example.demo.service.AuthService;
+import com.example.demo.service.RuntimeStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -25,6 +27,9 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private RuntimeStatsService runtimeStatsService;
+
     @PostMapping("/register")
     @Operation(
         summary = "Register a new user", 
@@ -74,15 +79,18 @@ public class AuthController {
     @GetMapping("/status")
     @Operation(
         summary = "Get service status", 
-        description = "Get detailed status information about the authentication service"
+        description = "Get the node's status, start time and uptime. Detailed runtime statistics are under /api/runtime/stats."
     )
     @ApiResponse(responseCode = "200", description = "Service status retrieved successfully")
     public ResponseEntity<Map<String, Object>> getStatus() {
-        Map<String, Object> status = new HashMap<>();
+        Map<String, Object> status = new LinkedHashMap<>();
         status.put("service", "Authentication API");
         status.put("version", "1.0.0");
-        status.put("status", "ACTIVE");
-        status.put("uptime", System.currentTimeMillis());
+        status.putAll(runtimeStatsService.status());
+        // Warnings and the runtime details describe internals, and this endpoint is public
+        status.remove("warnings");
+        status.remove("javaVersion");
+        status.remove("availableProcessors");
         status.put("endpoints", new String[]{"/register", "/login", "/health", "/status"});
         return ResponseEntity.ok(status);
     }
@@ -1,15 +1,16 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.PatientRecoverySummaryView;
 import com.example.demo.model.PatientProfile;
 import com.example.demo.service.PatientProfileService;
+import com.example.demo.service.PatientRecoverySummaryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/patients")
 @Tag(name = "Patient Management", description = "Patient profile management APIs")
@@ -18,10 +19,14 @@ public class PatientController {
     @Autowired
     private PatientProfileService patientProfileService;
 
+    @Autowired
+    private PatientRecoverySummaryService patientRecoverySummaryService;
+
     @GetMapping
-    @Operation(summary = "Get all patients", description = "Retrieve all patient profiles")
-    public ResponseEntity<List<PatientProfile>> getAllPatients() {
-        List<PatientProfile> patients = patientProfileService.getAllPatients();
+    @Operation(summary = "Get all patients", description = "Retrieve patient profiles one page at a time, ordered by ID. Pass the returned nextCursor to fetch the following page.")
+    public ResponseEntity<CursorPage<PatientProfile>> getAllPatients(@RequestParam(required = false) String cursor,
+                                                                     @RequestParam(required = false) Integer size) {
+        CursorPage<PatientProfile> patients = patientProfileService.getPatientsPage(cursor, size);
         return ResponseEntity.ok(patients);
     }
 
@@ -32,6 +37,12 @@ public class PatientController {
         return ResponseEntity.ok(patient);
     }
 
+    @GetMapping("/{id}/summary")
+    @Operation(summary = "Get recovery summary", description = "Latest levels, 7-day averages, trends and days since the last log for a patient, read from a single precomputed row")
+    public ResponseEntity<PatientRecoverySummaryView> getRecoverySummary(@PathVariable Long id) {
+        return ResponseEntity.ok(patientRecoverySummaryService.getSummary(id));
+    }
+
     @PostMapping
     @Operation(summary = "Create patient", description = "Create a new patient profile")
     public ResponseEntity<PatientProfile> createPatient(@RequestBody PatientProfile patient) {
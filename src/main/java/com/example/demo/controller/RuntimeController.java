@@ -0,0 +1,27 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.RuntimeStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/runtime")
+@Tag(name = "Runtime", description = "Runtime performance statistics for this node")
+public class RuntimeController {
+
+    @Autowired
+    private RuntimeStatsService runtimeStatsService;
+
+    @GetMapping("/stats")
+    @Operation(summary = "Runtime snapshot", description = "Status and warnings, uptime, per-endpoint request rates and latency percentiles, connection pool utilization, GC totals, heap, non-heap and buffer pool usage, cache hit ratios and alert queue depths")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(runtimeStatsService.snapshot());
+    }
+}
@@ -1,19 +1,107 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.SymptomLogBatchResult;
+import com.example.demo.dto.SymptomLogImportSummary;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.service.DailySymptomLogService;
+import com.example.demo.service.RuntimeStatsService;
+import com.example.demo.service.SymptomLogExportService;
+import com.example.demo.service.SymptomLogFormat;
+import com.example.demo.service.SymptomLogImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/symptom-logs")
+@Tag(name = "Symptom Logs", description = "Daily symptom log APIs")
 public class SymptomLogController {
 
+    @Autowired
+    private DailySymptomLogService dailySymptomLogService;
+
+    @Autowired
+    private SymptomLogImportService symptomLogImportService;
+
+    @Autowired
+    private SymptomLogExportService symptomLogExportService;
+
+    @Autowired
+    private RuntimeStatsService runtimeStatsService;
+
     @GetMapping
-    public ResponseEntity<String> getAllLogs() {
-        return ResponseEntity.ok("Symptom log service is running");
+    @Operation(summary = "Get logs by patient", description = "Retrieve a patient's logs one page at a time, ordered by log date. Pass the returned nextCursor to fetch the following page.")
+    public ResponseEntity<CursorPage<DailySymptomLog>> getAllLogs(@RequestParam Long patientId,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer size) {
+        CursorPage<DailySymptomLog> logs = dailySymptomLogService.getLogsPageByPatient(patientId, cursor, size);
+        return ResponseEntity.ok(logs);
+    }
+
+    @PostMapping
+    @Operation(summary = "Record symptom log", description = "Record a single daily symptom log. Send an Idempotency-Key header to make retries safe.")
+    public ResponseEntity<DailySymptomLog> recordLog(@RequestBody DailySymptomLog log) {
+        DailySymptomLog saved = dailySymptomLogService.recordSymptomLog(log);
+        return ResponseEntity.ok(saved);
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Record symptom logs in bulk", description = "Record many daily symptom logs in one request and return a result per entry. Send an Idempotency-Key header to make retries safe.")
+    public ResponseEntity<List<SymptomLogBatchResult>> recordLogs(@RequestBody List<DailySymptomLog> logs) {
+        List<SymptomLogBatchResult> results = dailySymptomLogService.recordSymptomLogs(logs);
+        return ResponseEntity.ok(results);
+    }
+
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @Operation(summary = "Import symptom logs", description = "Stream newline-delimited JSON or CSV (with a header row) of historical logs. Rows are stored in chunks without alert evaluation.")
+    public ResponseEntity<SymptomLogImportSummary> importLogs(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) throws IOException {
+        SymptomLogFormat format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? SymptomLogFormat.NDJSON
+                : SymptomLogFormat.CSV;
+        SymptomLogImportSummary summary = symptomLogImportService.importLogs(body, format);
+        return ResponseEntity.ok(summary);
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export a cohort's symptom logs", description = "Stream every log of patients with the given surgery type as CSV or NDJSON, optionally gzip-compressed")
+    public void exportLogs(@RequestParam String surgeryType,
+                           @RequestParam(defaultValue = "CSV") SymptomLogFormat format,
+                           @RequestParam(defaultValue = "false") boolean gzip,
+                           HttpServletResponse response) throws IOException {
+        String extension = format.name().toLowerCase(Locale.ROOT);
+        String fileName = "symptom-logs." + extension + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : format == SymptomLogFormat.CSV ? "text/csv" : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        OutputStream output = gzip ? new GZIPOutputStream(response.getOutputStream(), 64 * 1024) : response.getOutputStream();
+        symptomLogExportService.exportCohort(surgeryType, format, output);
+        if (output instanceof GZIPOutputStream gzipOutput) {
+            gzipOutput.finish();
+        }
+        output.flush();
     }
 
     @GetMapping("/health")
-    public ResponseEntity<String> health() {
-        return ResponseEntity.ok("Symptom log service health check");
+    @Operation(summary = "Symptom log health", description = "Node status plus write outcomes and per-stage latency by surgery type, and the alert queue depth")
+    public ResponseEntity<Map<String, Object>> health() {
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", runtimeStatsService.status());
+        health.putAll(runtimeStatsService.symptomLogSnapshot());
+        return ResponseEntity.ok(health);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,141 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.PatientRecoverySummary;
+import com.example.demo.model.RecoveryTrend;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Read-only copy of a {@link PatientRecoverySummary}, safe to share between
+ * requests from the summary cache.
+ */
+@Schema(description = "Recovery summary for one patient; averages and trends cover the seven days ending at the last log")
+public class PatientRecoverySummaryView {
+
+    @Schema(description = "Patient ID", example = "1")
+    private final Long patientId;
+
+    @Schema(description = "Number of logs recorded for the patient", example = "42")
+    private final long logCount;
+
+    @Schema(description = "Date of the most recent log", example = "2024-03-01")
+    private final LocalDate lastLogDate;
+
+    @Schema(description = "Pain level on the most recent log", example = "3")
+    private final Integer latestPainLevel;
+
+    @Schema(description = "Mobility level on the most recent log", example = "7")
+    private final Integer latestMobilityLevel;
+
+    @Schema(description = "Fatigue level on the most recent log", example = "4")
+    private final Integer latestFatigueLevel;
+
+    @Schema(description = "Average pain level over the seven days ending at the last log", example = "3.5")
+    private final Double painAverage7d;
+
+    @Schema(description = "Average mobility level over the seven days ending at the last log", example = "6.75")
+    private final Double mobilityAverage7d;
+
+    @Schema(description = "Average fatigue level over the seven days ending at the last log", example = "4.0")
+    private final Double fatigueAverage7d;
+
+    @Schema(description = "Direction of the pain level over the same seven days", example = "IMPROVING")
+    private final RecoveryTrend painTrend;
+
+    @Schema(description = "Direction of the mobility level over the same seven days", example = "STABLE")
+    private final RecoveryTrend mobilityTrend;
+
+    @Schema(description = "Direction of the fatigue level over the same seven days", example = "WORSENING")
+    private final RecoveryTrend fatigueTrend;
+
+    @Schema(description = "When the summary was last written")
+    private final LocalDateTime updatedAt;
+
+    public PatientRecoverySummaryView(Long patientId, long logCount, LocalDate lastLogDate,
+                                      Integer latestPainLevel, Integer latestMobilityLevel, Integer latestFatigueLevel,
+                                      Double painAverage7d, Double mobilityAverage7d, Double fatigueAverage7d,
+                                      RecoveryTrend painTrend, RecoveryTrend mobilityTrend, RecoveryTrend fatigueTrend,
+                                      LocalDateTime updatedAt) {
+        this.patientId = patientId;
+        this.logCount = logCount;
+        this.lastLogDate = lastLogDate;
+        this.latestPainLevel = latestPainLevel;
+        this.latestMobilityLevel = latestMobilityLevel;
+        this.latestFatigueLevel = latestFatigueLevel;
+        this.painAverage7d = painAverage7d;
+        this.mobilityAverage7d = mobilityAverage7d;
+        this.fatigueAverage7d = fatigueAverage7d;
+        this.painTrend = painTrend;
+        this.mobilityTrend = mobilityTrend;
+        this.fatigueTrend = fatigueTrend;
+        this.updatedAt = updatedAt;
+    }
+
+    public static PatientRecoverySummaryView of(PatientRecoverySummary summary) {
+        return new PatientRecoverySummaryView(summary.getPatientId(), summary.getLogCount(), summary.getLastLogDate(),
+                summary.getLatestPainLevel(), summary.getLatestMobilityLevel(), summary.getLatestFatigueLevel(),
+                summary.getPainAverage7d(), summary.getMobilityAverage7d(), summary.getFatigueAverage7d(),
+                summary.getPainTrend(), summary.getMobilityTrend(), summary.getFatigueTrend(),
+                summary.getUpdatedAt());
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public long getLogCount() {
+        return logCount;
+    }
+
+    public LocalDate getLastLogDate() {
+        return lastLogDate;
+    }
+
+    @Schema(description = "Days between the most recent log and today", example = "1")
+    public Long getDaysSinceLastLog() {
+        return lastLogDate == null ? null : ChronoUnit.DAYS.between(lastLogDate, LocalDate.now());
+    }
+
+    public Integer getLatestPainLevel() {
+        return latestPainLevel;
+    }
+
+    public Integer getLatestMobilityLevel() {
+        return latestMobilityLevel;
+    }
+
+    public Integer getLatestFatigueLevel() {
+        return latestFatigueLevel;
+    }
+
+    public Double getPainAverage7d() {
+        return painAverage7d;
+    }
+
+    public Double getMobilityAverage7d() {
+        return mobilityAverage7d;
+    }
+
+    public Double getFatigueAverage7d() {
+        return fatigueAverage7d;
+    }
+
+    public RecoveryTrend getPainTrend() {
+        return painTrend;
+    }
+
+    public RecoveryTrend getMobilityTrend() {
+        return mobilityTrend;
+    }
+
+    public RecoveryTrend getFatigueTrend() {
+        return fatigueTrend;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Outcome of a single entry in a symptom log batch")
+public class SymptomLogBatchResult {
+
+    public enum Status {
+        ACCEPTED, DUPLICATE, REJECTED
+    }
+
+    @Schema(description = "Position of the entry in the submitted batch", example = "0")
+    private int index;
+
+    @Schema(description = "Outcome of the entry", example = "ACCEPTED")
+    private Status status;
+
+    @Schema(description = "ID of the stored log when accepted", example = "42")
+    private Long logId;
+
+    @Schema(description = "Reason when the entry was not accepted", example = "Log already exists for this date")
+    private String message;
+
+    public SymptomLogBatchResult() {
+    }
+
+    public SymptomLogBatchResult(int index, Status status, Long logId, String message) {
+        this.index = index;
+        this.status = status;
+        this.logId = logId;
+        this.message = message;
+    }
+
+    public static SymptomLogBatchResult accepted(int index, Long logId) {
+        return new SymptomLogBatchResult(index, Status.ACCEPTED, logId, null);
+    }
+
+    public static SymptomLogBatchResult duplicate(int index) {
+        return new SymptomLogBatchResult(index, Status.DUPLICATE, null, "Log already exists for this date");
+    }
+
+    public static SymptomLogBatchResult rejected(int index, String message) {
+        return new SymptomLogBatchResult(index, Status.REJECTED, null, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getLogId() {
+        return logId;
+    }
+
+    public void setLogId(Long logId) {
+        this.logId = logId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
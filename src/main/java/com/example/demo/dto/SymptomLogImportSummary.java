@@ -0,0 +1,96 @@
+package com.example.demo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(description = "Summary of a streaming symptom log import")
+public class SymptomLogImportSummary {
+
+    public static final int MAX_ERRORS = 100;
+
+    @Schema(description = "Number of data rows read", example = "1000000")
+    private long totalRows;
+
+    @Schema(description = "Number of rows stored", example = "998500")
+    private long accepted;
+
+    @Schema(description = "Number of rows skipped because a log already exists for that patient and date", example = "1200")
+    private long duplicate;
+
+    @Schema(description = "Number of rows that failed parsing or validation", example = "300")
+    private long rejected;
+
+    @Schema(description = "Elapsed import time in milliseconds", example = "84213")
+    private long durationMillis;
+
+    @Schema(description = "First rejection reasons, prefixed with their line number")
+    private List<String> errors = new ArrayList<>();
+
+    public void addAccepted() {
+        totalRows++;
+        accepted++;
+    }
+
+    public void addDuplicate() {
+        totalRows++;
+        duplicate++;
+    }
+
+    public void addRejected(long line, String reason) {
+        totalRows++;
+        rejected++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("line " + line + ": " + reason);
+        }
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(long accepted) {
+        this.accepted = accepted;
+    }
+
+    public long getDuplicate() {
+        return duplicate;
+    }
+
+    public void setDuplicate(long duplicate) {
+        this.duplicate = duplicate;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.exception;
+
+public class DuplicateLogException extends IllegalArgumentException {
+    public DuplicateLogException(String message) {
+        super(message);
+    }
+}
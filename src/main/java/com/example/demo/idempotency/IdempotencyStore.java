@@ -0,0 +1,251 @@
+package com.example.demo.idempotency;
+
+import com.example.demo.model.IdempotencyRecord;
+import com.example.demo.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the responses of recent idempotent requests.
+ *
+ * <p>A request claims its key by inserting a pending {@link IdempotencyRecord};
+ * the insert fails when any node already holds the key, and the stored row then
+ * tells whether to replay a response or report the key as in progress. A claim
+ * older than the claim timeout is taken over, as its request is presumed dead.
+ * Completed responses are also kept in a bounded in-memory cache, and expire
+ * after the TTL in both places.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Cache<String, StoredResponse> cache;
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+    private final Duration ttl;
+    private final Duration claimTimeout;
+    private final int maxResponseBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public IdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository, MeterRegistry meterRegistry,
+                            @Value("${idempotency.ttl-minutes:1440}") long ttlMinutes,
+                            @Value("${idempotency.claim-timeout-seconds:300}") long claimTimeoutSeconds,
+                            @Value("${idempotency.cache.max-entries:10000}") long maxEntries,
+                            @Value("${idempotency.max-response-bytes:262144}") int maxResponseBytes) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.claimTimeout = Duration.ofSeconds(claimTimeoutSeconds);
+        this.maxResponseBytes = maxResponseBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency");
+        this.hits = meterRegistry.counter("idempotency.requests", "result", "replayed");
+        this.misses = meterRegistry.counter("idempotency.requests", "result", "executed");
+        Gauge.builder("idempotency.hit.ratio", this, IdempotencyStore::hitRatio)
+                .description("Share of keyed requests answered from a stored response")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims the key for a request about to execute, or returns the stored
+     * response to replay, or reports that a request holding the key is still
+     * running on this or another node.
+     */
+    public Claim begin(String key, String requestHash) {
+        StoredResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return Claim.completed(cached);
+        }
+        if (!inProgress.add(key)) {
+            return Claim.IN_PROGRESS;
+        }
+        boolean claimed = false;
+        try {
+            // Stored with millisecond precision so it can identify the claim in later updates
+            LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+            try {
+                idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(key, requestHash, null, null, null, claimedAt));
+                claimed = true;
+            } catch (DataIntegrityViolationException e) {
+                claimed = idempotencyRecordRepository.takeOver(key, requestHash, claimedAt,
+                        claimedAt.minus(claimTimeout), claimedAt.minus(ttl)) == 1;
+            }
+            if (claimed) {
+                misses.increment();
+                return Claim.claimed(claimedAt);
+            }
+            Optional<StoredResponse> stored = load(key);
+            if (stored.isPresent()) {
+                hits.increment();
+                return Claim.completed(stored.get());
+            }
+            return Claim.IN_PROGRESS;
+        } finally {
+            if (!claimed) {
+                inProgress.remove(key);
+            }
+        }
+    }
+
+    // Pending claims and expired responses are not returned
+    private Optional<StoredResponse> load(String key) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        Optional<StoredResponse> stored = idempotencyRecordRepository.findById(key)
+                .filter(record -> record.getStatusCode() != null && record.getCreatedAt().isAfter(cutoff))
+                .map(StoredResponse::of);
+        stored.ifPresent(response -> cache.put(key, response));
+        return stored;
+    }
+
+    /**
+     * Stores the response of a claimed request. A response over the size limit
+     * is not kept, so the key is released and a retry executes again.
+     */
+    public void complete(String key, Claim claim, StoredResponse response) {
+        try {
+            if (response.body.length > maxResponseBytes) {
+                idempotencyRecordRepository.release(key, claim.claimedAt);
+                return;
+            }
+            if (idempotencyRecordRepository.complete(key, claim.claimedAt, response.status, response.contentType, response.body) == 1) {
+                cache.put(key, response);
+            } else {
+                logger.warn("Idempotency key {} was taken over before its request completed; the response is not stored", key);
+            }
+        } catch (DataAccessException e) {
+            // Retries find the claim pending until it times out, and are then executed again
+            logger.warn("Could not store the response for idempotency key {}", key, e);
+        } finally {
+            inProgress.remove(key);
+        }
+    }
+
+    public void abandon(String key, Claim claim) {
+        try {
+            idempotencyRecordRepository.release(key, claim.claimedAt);
+        } catch (DataAccessException e) {
+            logger.warn("Could not release idempotency key {}", key, e);
+        } finally {
+            inProgress.remove(key);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        int purged = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cachedKeys", cache.estimatedSize());
+        stats.put("inProgress", inProgress.size());
+        stats.put("replayed", (long) hits.count());
+        stats.put("executed", (long) misses.count());
+        stats.put("hitRatio", hitRatio());
+        stats.put("cacheHitRatio", cache.stats().hitRate());
+        return stats;
+    }
+
+    public static final class Claim {
+        private static final Claim IN_PROGRESS = new Claim(null, null);
+
+        private final LocalDateTime claimedAt;
+        private final StoredResponse response;
+
+        private Claim(LocalDateTime claimedAt, StoredResponse response) {
+            this.claimedAt = claimedAt;
+            this.response = response;
+        }
+
+        private static Claim claimed(LocalDateTime claimedAt) {
+            return new Claim(claimedAt, null);
+        }
+
+        private static Claim completed(StoredResponse response) {
+            return new Claim(null, response);
+        }
+
+        public boolean isClaimed() {
+            return claimedAt != null;
+        }
+
+        public boolean isInProgress() {
+            return claimedAt == null && response == null;
+        }
+
+        public Optional<StoredResponse> getResponse() {
+            return Optional.ofNullable(response);
+        }
+    }
+
+    public static final class StoredResponse {
+        private final String requestHash;
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+
+        public StoredResponse(String requestHash, int status, String contentType, byte[] body) {
+            this.requestHash = requestHash;
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        private static StoredResponse of(IdempotencyRecord record) {
+            byte[] body = record.getResponseBody() == null ? new byte[0] : record.getResponseBody();
+            return new StoredResponse(record.getRequestHash(), record.getStatusCode(), record.getContentType(), body);
+        }
+
+        public String getRequestHash() {
+            return requestHash;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
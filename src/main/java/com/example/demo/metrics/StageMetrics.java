@@ -0,0 +1,53 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage and outcome timers for multi-step operations.
+ *
+ * <p>For a flow such as {@code symptom.log.write}, each step is recorded in
+ * {@code <flow>.stage} tagged with the stage and surgery type, and the whole
+ * operation in {@code <flow>} tagged with the surgery type and outcome; the
+ * latter's count doubles as the outcome counter. Percentiles are configured per
+ * flow through {@code management.metrics.distribution.percentiles.*}.
+ */
+@Component
+public class StageMetrics {
+
+    public static final String LOG_WRITE = "symptom.log.write";
+    public static final String ALERT_EVALUATION = "alerts.evaluation";
+
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+
+    public StageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Records a stage that began at {@code startedNanos} and returns the current
+     * time, so consecutive stages can be chained.
+     */
+    public long stage(String flow, String stage, String surgeryType, long startedNanos) {
+        long now = System.nanoTime();
+        Timer.builder(flow + ".stage")
+                .tag("stage", stage)
+                .tag("surgeryType", surgeryType == null ? UNKNOWN : surgeryType)
+                .register(meterRegistry)
+                .record(now - startedNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void complete(String flow, String surgeryType, String outcome, long startedNanos) {
+        Timer.builder(flow)
+                .tag("surgeryType", surgeryType == null ? UNKNOWN : surgeryType)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A contiguous range of patient IDs within an {@link AlertBackfillRun} and the
+ * checkpoint of how far through it the run has got. Every patient up to and
+ * including checkpointPatientId has had its alert changes committed.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_backfill_partition_run", columnList = "run_id, partition_index", unique = true))
+public class AlertBackfillPartition {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alert_backfill_partition_seq")
+    @SequenceGenerator(name = "alert_backfill_partition_seq", sequenceName = "alert_backfill_partition_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false)
+    private Long runId;
+    @Column(nullable = false)
+    private Integer partitionIndex;
+    // Exclusive lower and inclusive upper bound of the patient IDs
+    @Column(nullable = false)
+    private Long fromPatientId;
+    @Column(nullable = false)
+    private Long toPatientId;
+    @Column(nullable = false)
+    private Long checkpointPatientId;
+    @Column(nullable = false)
+    private Boolean completed;
+    @Column(nullable = false)
+    private Long patientsProcessed;
+    @Column(nullable = false)
+    private Long logsScanned;
+    @Column(nullable = false)
+    private Long alertsCreated;
+    // Added after the first runs, so older rows have none
+    private Long alertsUpdated;
+    @Column(nullable = false)
+    private Long alertsRemoved;
+    private LocalDateTime updatedAt;
+
+    public AlertBackfillPartition() {
+    }
+
+    public AlertBackfillPartition(Long runId, int partitionIndex, long fromPatientId, long toPatientId) {
+        this.runId = runId;
+        this.partitionIndex = partitionIndex;
+        this.fromPatientId = fromPatientId;
+        this.toPatientId = toPatientId;
+        this.checkpointPatientId = fromPatientId;
+        this.completed = false;
+        this.patientsProcessed = 0L;
+        this.logsScanned = 0L;
+        this.alertsCreated = 0L;
+        this.alertsUpdated = 0L;
+        this.alertsRemoved = 0L;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getRunId() {
+        return runId;
+    }
+
+    public void setRunId(Long runId) {
+        this.runId = runId;
+    }
+
+    public Integer getPartitionIndex() {
+        return partitionIndex;
+    }
+
+    public void setPartitionIndex(Integer partitionIndex) {
+        this.partitionIndex = partitionIndex;
+    }
+
+    public Long getFromPatientId() {
+        return fromPatientId;
+    }
+
+    public void setFromPatientId(Long fromPatientId) {
+        this.fromPatientId = fromPatientId;
+    }
+
+    public Long getToPatientId() {
+        return toPatientId;
+    }
+
+    public void setToPatientId(Long toPatientId) {
+        this.toPatientId = toPatientId;
+    }
+
+    public Long getCheckpointPatientId() {
+        return checkpointPatientId;
+    }
+
+    public void setCheckpointPatientId(Long checkpointPatientId) {
+        this.checkpointPatientId = checkpointPatientId;
+    }
+
+    public Boolean getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Boolean completed) {
+        this.completed = completed;
+    }
+
+    public Long getPatientsProcessed() {
+        return patientsProcessed;
+    }
+
+    public void setPatientsProcessed(Long patientsProcessed) {
+        this.patientsProcessed = patientsProcessed;
+    }
+
+    public Long getLogsScanned() {
+        return logsScanned;
+    }
+
+    public void setLogsScanned(Long logsScanned) {
+        this.logsScanned = logsScanned;
+    }
+
+    public Long getAlertsCreated() {
+        return alertsCreated;
+    }
+
+    public void setAlertsCreated(Long alertsCreated) {
+        this.alertsCreated = alertsCreated;
+    }
+
+    public Long getAlertsUpdated() {
+        return alertsUpdated;
+    }
+
+    public void setAlertsUpdated(Long alertsUpdated) {
+        this.alertsUpdated = alertsUpdated;
+    }
+
+    public long alertsUpdatedOrZero() {
+        return alertsUpdated == null ? 0 : alertsUpdated;
+    }
+
+    public Long getAlertsRemoved() {
+        return alertsRemoved;
+    }
+
+    public void setAlertsRemoved(Long alertsRemoved) {
+        this.alertsRemoved = alertsRemoved;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
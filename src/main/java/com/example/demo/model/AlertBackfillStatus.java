@@ -0,0 +1,9 @@
+package com.example.demo.model;
+
+public enum AlertBackfillStatus {
+    RUNNING,
+    PAUSED,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
@@ -1,12 +1,18 @@
 package com.example.demo.model;
 
 import jakarta.persistence.*;
+import java.time.LocalDate;
 import java.util.Objects;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_alert_patient", columnList = "patient_id, id"),
+        @Index(name = "idx_alert_open", columnList = "patient_id, alert_type, severity, resolved")
+})
 public class ClinicalAlertRecord {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "clinical_alert_record_seq")
+    @SequenceGenerator(name = "clinical_alert_record_seq", sequenceName = "clinical_alert_record_seq", allocationSize = 50)
     private Long id;
     private Long patientId;
     private Long logId;
@@ -14,6 +20,11 @@ public class ClinicalAlertRecord {
     private String severity;
     private String message;
     private Boolean resolved = false;
+    // The alert covers every day it fired until it was resolved: the earliest and latest such day and the number of
+    // distinct days, which includes days from late logs; null on rows stored before coalescing
+    private LocalDate firstSeenDate;
+    private LocalDate lastSeenDate;
+    private Integer occurrenceCount;
 
     public ClinicalAlertRecord() {
     }
@@ -28,6 +39,14 @@ public class ClinicalAlertRecord {
         this.resolved = resolved;
     }
 
+    public ClinicalAlertRecord(Long id, Long patientId, Long logId, String alertType, String severity, String message, Boolean resolved,
+                               LocalDate firstSeenDate, LocalDate lastSeenDate, Integer occurrenceCount) {
+        this(id, patientId, logId, alertType, severity, message, resolved);
+        this.firstSeenDate = firstSeenDate;
+        this.lastSeenDate = lastSeenDate;
+        this.occurrenceCount = occurrenceCount;
+    }
+
     public Long getId() {
         return id;
     }
@@ -84,17 +103,41 @@ public class ClinicalAlertRecord {
         this.resolved = resolved;
     }
 
+    public LocalDate getFirstSeenDate() {
+        return firstSeenDate;
+    }
+
+    public void setFirstSeenDate(LocalDate firstSeenDate) {
+        this.firstSeenDate = firstSeenDate;
+    }
+
+    public LocalDate getLastSeenDate() {
+        return lastSeenDate;
+    }
+
+    public void setLastSeenDate(LocalDate lastSeenDate) {
+        this.lastSeenDate = lastSeenDate;
+    }
+
+    public Integer getOccurrenceCount() {
+        return occurrenceCount;
+    }
+
+    public void setOccurrenceCount(Integer occurrenceCount) {
+        this.occurrenceCount = occurrenceCount;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ClinicalAlertRecord that = (ClinicalAlertRecord) o;
-        return Objects.equals(id, that.id) && Objects.equals(patientId, that.patientId) && Objects.equals(logId, that.logId) && Objects.equals(alertType, that.alertType) && Objects.equals(severity, that.severity) && Objects.equals(message, that.message) && Objects.equals(resolved, that.resolved);
+        return Objects.equals(id, that.id) && Objects.equals(patientId, that.patientId) && Objects.equals(logId, that.logId) && Objects.equals(alertType, that.alertType) && Objects.equals(severity, that.severity) && Objects.equals(message, that.message) && Objects.equals(resolved, that.resolved) && Objects.equals(firstSeenDate, that.firstSeenDate) && Objects.equals(lastSeenDate, that.lastSeenDate) && Objects.equals(occurrenceCount, that.occurrenceCount);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, patientId, logId, alertType, severity, message, resolved);
+        return Objects.hash(id, patientId, logId, alertType, severity, message, resolved, firstSeenDate, lastSeenDate, occurrenceCount);
     }
 
     @Override
@@ -107,6 +150,9 @@ public class ClinicalAlertRecord {
                 ", severity='" + severity + '\'' +
                 ", message='" + message + '\'' +
                 ", resolved=" + resolved +
+                ", firstSeenDate=" + firstSeenDate +
+                ", lastSeenDate=" + lastSeenDate +
+                ", occurrenceCount=" + occurrenceCount +
                 '}';
     }
 
@@ -122,6 +168,9 @@ public class ClinicalAlertRecord {
         private String severity;
         private String message;
         private Boolean resolved;
+        private LocalDate firstSeenDate;
+        private LocalDate lastSeenDate;
+        private Integer occurrenceCount;
 
         public Builder id(Long id) {
             this.id = id;
@@ -158,8 +207,24 @@ public class ClinicalAlertRecord {
             return this;
         }
 
+        public Builder firstSeenDate(LocalDate firstSeenDate) {
+            this.firstSeenDate = firstSeenDate;
+            return this;
+        }
+
+        public Builder lastSeenDate(LocalDate lastSeenDate) {
+            this.lastSeenDate = lastSeenDate;
+            return this;
+        }
+
+        public Builder occurrenceCount(Integer occurrenceCount) {
+            this.occurrenceCount = occurrenceCount;
+            return this;
+        }
+
         public ClinicalAlertRecord build() {
-            return new ClinicalAlertRecord(id, patientId, logId, alertType, severity, message, resolved);
+            return new ClinicalAlertRecord(id, patientId, logId, alertType, severity, message, resolved,
+                    firstSeenDate, lastSeenDate, occurrenceCount);
         }
     }
 }
\ No newline at end of file
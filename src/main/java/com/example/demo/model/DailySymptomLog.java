@@ -5,9 +5,13 @@ import java.time.LocalDate;
 import java.util.Objects;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = DailySymptomLog.UNIQUE_PATIENT_DATE, columnNames = {"patient_id", "log_date"}))
 public class DailySymptomLog {
+    public static final String UNIQUE_PATIENT_DATE = "uk_log_patient_date";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_symptom_log_seq")
+    @SequenceGenerator(name = "daily_symptom_log_seq", sequenceName = "daily_symptom_log_seq", allocationSize = 50)
     private Long id;
     private Long patientId;
     private LocalDate logDate;
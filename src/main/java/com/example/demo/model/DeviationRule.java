@@ -1,18 +1,28 @@
 package com.example.demo.model;
 
+import com.example.demo.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.Objects;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.RULE_REGION)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_rule_code", columnNames = "rule_code"))
 public class DeviationRule {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "deviation_rule_seq")
+    @SequenceGenerator(name = "deviation_rule_seq", sequenceName = "deviation_rule_seq", allocationSize = 50)
     private Long id;
     private String ruleCode;
     private String parameter;
     private Integer threshold;
     private String severity;
     private Boolean active = true;
+    // THRESHOLD (the default) compares a single day; the window conditions look at the last windowDays days
+    private String conditionType;
+    private Integer windowDays;
 
     public DeviationRule() {
     }
@@ -26,6 +36,12 @@ public class DeviationRule {
         this.active = active;
     }
 
+    public DeviationRule(Long id, String ruleCode, String parameter, Integer threshold, String severity, Boolean active, String conditionType, Integer windowDays) {
+        this(id, ruleCode, parameter, threshold, severity, active);
+        this.conditionType = conditionType;
+        this.windowDays = windowDays;
+    }
+
     public Long getId() {
         return id;
     }
@@ -74,17 +90,33 @@ public class DeviationRule {
         this.active = active;
     }
 
+    public String getConditionType() {
+        return conditionType;
+    }
+
+    public void setConditionType(String conditionType) {
+        this.conditionType = conditionType;
+    }
+
+    public Integer getWindowDays() {
+        return windowDays;
+    }
+
+    public void setWindowDays(Integer windowDays) {
+        this.windowDays = windowDays;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         DeviationRule that = (DeviationRule) o;
-        return Objects.equals(id, that.id) && Objects.equals(ruleCode, that.ruleCode) && Objects.equals(parameter, that.parameter) && Objects.equals(threshold, that.threshold) && Objects.equals(severity, that.severity) && Objects.equals(active, that.active);
+        return Objects.equals(id, that.id) && Objects.equals(ruleCode, that.ruleCode) && Objects.equals(parameter, that.parameter) && Objects.equals(threshold, that.threshold) && Objects.equals(severity, that.severity) && Objects.equals(active, that.active) && Objects.equals(conditionType, that.conditionType) && Objects.equals(windowDays, that.windowDays);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, ruleCode, parameter, threshold, severity, active);
+        return Objects.hash(id, ruleCode, parameter, threshold, severity, active, conditionType, windowDays);
     }
 
     @Override
@@ -96,6 +128,8 @@ public class DeviationRule {
                 ", threshold=" + threshold +
                 ", severity='" + severity + '\'' +
                 ", active=" + active +
+                ", conditionType='" + conditionType + '\'' +
+                ", windowDays=" + windowDays +
                 '}';
     }
 
@@ -110,6 +144,8 @@ public class DeviationRule {
         private Integer threshold;
         private String severity;
         private Boolean active;
+        private String conditionType;
+        private Integer windowDays;
 
         public Builder id(Long id) {
             this.id = id;
@@ -141,8 +177,18 @@ public class DeviationRule {
             return this;
         }
 
+        public Builder conditionType(String conditionType) {
+            this.conditionType = conditionType;
+            return this;
+        }
+
+        public Builder windowDays(Integer windowDays) {
+            this.windowDays = windowDays;
+            return this;
+        }
+
         public DeviationRule build() {
-            return new DeviationRule(id, ruleCode, parameter, threshold, severity, active);
+            return new DeviationRule(id, ruleCode, parameter, threshold, severity, active, conditionType, windowDays);
         }
     }
 }
\ No newline at end of file
@@ -1,13 +1,21 @@
 package com.example.demo.model;
 
+import com.example.demo.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.PATIENT_REGION)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_patient_patient_id", columnNames = "patient_id"),
+        indexes = @Index(name = "idx_patient_surgery_type", columnList = "surgery_type"))
 public class PatientProfile {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_profile_seq")
+    @SequenceGenerator(name = "patient_profile_seq", sequenceName = "patient_profile_seq", allocationSize = 50)
     private Long id;
     private String patientId;
     private String fullName;
@@ -0,0 +1,170 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Dashboard view of one patient's recovery, maintained incrementally as logs
+ * are written so reading it never touches the log history.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_summary_last_log_date", columnList = "last_log_date"))
+public class PatientRecoverySummary {
+    public static final int WINDOW_DAYS = 7;
+    public static final int WINDOW_BYTES = WINDOW_DAYS * 3 * 2;
+
+    // Same value as PatientProfile.id
+    @Id
+    private Long patientId;
+    @Version
+    private Long version;
+    @Column(nullable = false)
+    private Long logCount;
+    private LocalDate lastLogDate;
+    private Integer latestPainLevel;
+    private Integer latestMobilityLevel;
+    private Integer latestFatigueLevel;
+    private Double painAverage7d;
+    private Double mobilityAverage7d;
+    private Double fatigueAverage7d;
+    @Enumerated(EnumType.STRING)
+    private RecoveryTrend painTrend;
+    @Enumerated(EnumType.STRING)
+    private RecoveryTrend mobilityTrend;
+    @Enumerated(EnumType.STRING)
+    private RecoveryTrend fatigueTrend;
+    // Values for the seven days ending at lastLogDate, kept so each write updates the averages in constant time
+    @Column(length = PatientRecoverySummary.WINDOW_BYTES)
+    private byte[] recentWindow;
+    private LocalDateTime updatedAt;
+
+    public PatientRecoverySummary() {
+    }
+
+    public PatientRecoverySummary(Long patientId) {
+        this.patientId = patientId;
+        this.logCount = 0L;
+        this.recentWindow = new byte[WINDOW_BYTES];
+    }
+
+    public Long getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getLogCount() {
+        return logCount;
+    }
+
+    public void setLogCount(Long logCount) {
+        this.logCount = logCount;
+    }
+
+    public LocalDate getLastLogDate() {
+        return lastLogDate;
+    }
+
+    public void setLastLogDate(LocalDate lastLogDate) {
+        this.lastLogDate = lastLogDate;
+    }
+
+    public Integer getLatestPainLevel() {
+        return latestPainLevel;
+    }
+
+    public void setLatestPainLevel(Integer latestPainLevel) {
+        this.latestPainLevel = latestPainLevel;
+    }
+
+    public Integer getLatestMobilityLevel() {
+        return latestMobilityLevel;
+    }
+
+    public void setLatestMobilityLevel(Integer latestMobilityLevel) {
+        this.latestMobilityLevel = latestMobilityLevel;
+    }
+
+    public Integer getLatestFatigueLevel() {
+        return latestFatigueLevel;
+    }
+
+    public void setLatestFatigueLevel(Integer latestFatigueLevel) {
+        this.latestFatigueLevel = latestFatigueLevel;
+    }
+
+    public Double getPainAverage7d() {
+        return painAverage7d;
+    }
+
+    public void setPainAverage7d(Double painAverage7d) {
+        this.painAverage7d = painAverage7d;
+    }
+
+    public Double getMobilityAverage7d() {
+        return mobilityAverage7d;
+    }
+
+    public void setMobilityAverage7d(Double mobilityAverage7d) {
+        this.mobilityAverage7d = mobilityAverage7d;
+    }
+
+    public Double getFatigueAverage7d() {
+        return fatigueAverage7d;
+    }
+
+    public void setFatigueAverage7d(Double fatigueAverage7d) {
+        this.fatigueAverage7d = fatigueAverage7d;
+    }
+
+    public RecoveryTrend getPainTrend() {
+        return painTrend;
+    }
+
+    public void setPainTrend(RecoveryTrend painTrend) {
+        this.painTrend = painTrend;
+    }
+
+    public RecoveryTrend getMobilityTrend() {
+        return mobilityTrend;
+    }
+
+    public void setMobilityTrend(RecoveryTrend mobilityTrend) {
+        this.mobilityTrend = mobilityTrend;
+    }
+
+    public RecoveryTrend getFatigueTrend() {
+        return fatigueTrend;
+    }
+
+    public void setFatigueTrend(RecoveryTrend fatigueTrend) {
+        this.fatigueTrend = fatigueTrend;
+    }
+
+    public byte[] getRecentWindow() {
+        return recentWindow;
+    }
+
+    public void setRecentWindow(byte[] recentWindow) {
+        this.recentWindow = recentWindow;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,12 +1,19 @@
 package com.example.demo.model;
 
+import com.example.demo.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.Objects;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.CURVE_REGION)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_curve_surgery_day", columnNames = {"surgery_type", "day_number"}))
 public class RecoveryCurveProfile {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recovery_curve_profile_seq")
+    @SequenceGenerator(name = "recovery_curve_profile_seq", sequenceName = "recovery_curve_profile_seq", allocationSize = 50)
     private Long id;
     private String surgeryType;
     private Integer dayNumber;
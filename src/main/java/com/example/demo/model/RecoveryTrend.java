@@ -0,0 +1,5 @@
+package com.example.demo.model;
+
+public enum RecoveryTrend {
+    IMPROVING, STABLE, WORSENING, INSUFFICIENT_DATA
+}
@@ -0,0 +1,10 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.AlertBackfillPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface AlertBackfillPartitionRepository extends JpaRepository<AlertBackfillPartition, Long> {
+    List<AlertBackfillPartition> findByRunIdOrderByPartitionIndexAsc(Long runId);
+}
@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.AlertBackfillRun;
+import com.example.demo.model.AlertBackfillStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface AlertBackfillRunRepository extends JpaRepository<AlertBackfillRun, Long> {
+    Optional<AlertBackfillRun> findFirstByOrderByIdDesc();
+    Optional<AlertBackfillRun> findFirstByStatusInOrderByIdDesc(Collection<AlertBackfillStatus> statuses);
+}
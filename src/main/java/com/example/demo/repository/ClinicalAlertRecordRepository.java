@@ -1,14 +1,25 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.ClinicalAlertRecord;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 public interface ClinicalAlertRecordRepository extends JpaRepository<ClinicalAlertRecord, Long> {
     List<ClinicalAlertRecord> findByPatientId(Long patientId);
+    List<ClinicalAlertRecord> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    List<ClinicalAlertRecord> findByPatientIdAndIdGreaterThanOrderByIdAsc(Long patientId, Long id, Pageable pageable);
+    // Open alerts, and the resolved ones that overlap the days from..to; rows stored before coalescing have no dates
+    @Query("select a from ClinicalAlertRecord a where a.patientId = :patientId and a.logId <= :maxLogId"
+            + " and (a.resolved is null or a.resolved = false or a.firstSeenDate is null or a.lastSeenDate is null"
+            + " or (a.lastSeenDate >= :from and a.firstSeenDate <= :to))")
+    List<ClinicalAlertRecord> findOpenOrOverlapping(@Param("patientId") Long patientId, @Param("maxLogId") Long maxLogId,
+                                                    @Param("from") LocalDate from, @Param("to") LocalDate to);
+    Optional<ClinicalAlertRecord> findFirstByPatientIdAndAlertTypeAndSeverityAndResolvedFalseOrderByIdDesc(Long patientId, String alertType, String severity);
 }
 
-
-
@@ -1,13 +1,48 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.DailySymptomLog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface DailySymptomLogRepository extends JpaRepository<DailySymptomLog, Long> {
     List<DailySymptomLog> findByPatientId(Long patientId);
     Optional<DailySymptomLog> findByPatientIdAndLogDate(Long patientId, LocalDate logDate);
-}
\ No newline at end of file
+    long countByPatientId(Long patientId);
+    Optional<DailySymptomLog> findFirstByPatientIdOrderByLogDateDesc(Long patientId);
+    List<DailySymptomLog> findByPatientIdAndLogDateBetween(Long patientId, LocalDate from, LocalDate to);
+    List<DailySymptomLog> findByPatientIdInAndLogDateBetween(Collection<Long> patientIds, LocalDate from, LocalDate to);
+
+    @Query("select l.logDate from DailySymptomLog l where l.patientId = :patientId and l.logDate between :from and :to")
+    List<LocalDate> findLogDatesByPatientIdBetween(@Param("patientId") Long patientId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select max(l.id) from DailySymptomLog l")
+    Long findMaxId();
+
+    List<DailySymptomLog> findByPatientIdOrderByLogDateAscIdAsc(Long patientId, Pageable pageable);
+
+    @Query("select l from DailySymptomLog l where l.patientId = :patientId"
+            + " and (l.logDate > :logDate or (l.logDate = :logDate and l.id > :id))"
+            + " order by l.logDate asc, l.id asc")
+    List<DailySymptomLog> findByPatientIdAfter(@Param("patientId") Long patientId, @Param("logDate") LocalDate logDate, @Param("id") Long id, Pageable pageable);
+
+    // Must be consumed inside a transaction and closed; rows are fetched from a server-side cursor
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select l from DailySymptomLog l where l.patientId in"
+            + " (select p.id from PatientProfile p where p.surgeryType = :surgeryType)"
+            + " order by l.patientId asc, l.logDate asc")
+    Stream<DailySymptomLog> streamBySurgeryType(@Param("surgeryType") String surgeryType);
+}
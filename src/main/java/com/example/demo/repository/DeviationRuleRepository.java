@@ -1,12 +1,20 @@
 package com.example.demo.repository;
 
+import com.example.demo.config.SecondLevelCacheConfig;
 import com.example.demo.model.DeviationRule;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface DeviationRuleRepository extends JpaRepository<DeviationRule, Long> {
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.REFERENCE_QUERY_REGION)
+    })
     List<DeviationRule> findByActiveTrue();
     Optional<DeviationRule> findByRuleCode(String ruleCode);
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Takes over a claim whose request is presumed dead, or a stored response that has expired
+    @Modifying
+    @Transactional
+    @Query("update IdempotencyRecord r set r.requestHash = :requestHash, r.statusCode = null, r.contentType = null,"
+            + " r.responseBody = null, r.createdAt = :claimedAt"
+            + " where r.id = :id and ((r.statusCode is null and r.createdAt < :staleBefore)"
+            + " or (r.statusCode is not null and r.createdAt < :expiredBefore))")
+    int takeOver(@Param("id") String id, @Param("requestHash") String requestHash, @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("staleBefore") LocalDateTime staleBefore, @Param("expiredBefore") LocalDateTime expiredBefore);
+
+    @Modifying
+    @Transactional
+    @Query("update IdempotencyRecord r set r.statusCode = :statusCode, r.contentType = :contentType, r.responseBody = :responseBody"
+            + " where r.id = :id and r.statusCode is null and r.createdAt = :claimedAt")
+    int complete(@Param("id") String id, @Param("claimedAt") LocalDateTime claimedAt, @Param("statusCode") int statusCode,
+                 @Param("contentType") String contentType, @Param("responseBody") byte[] responseBody);
+
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyRecord r where r.id = :id and r.statusCode is null and r.createdAt = :claimedAt")
+    int release(@Param("id") String id, @Param("claimedAt") LocalDateTime claimedAt);
+}
@@ -1,10 +1,27 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.PatientProfile;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface PatientProfileRepository extends JpaRepository<PatientProfile, Long> {
     Optional<PatientProfile> findByPatientId(String patientId);
+    List<PatientProfile> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Full scans would otherwise push every patient through the second-level cache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"))
+    List<PatientProfile> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long afterId, Long toId, Pageable pageable);
+
+    @Query("select min(p.id) from PatientProfile p")
+    Long findMinId();
+
+    @Query("select max(p.id) from PatientProfile p")
+    Long findMaxId();
 }
\ No newline at end of file
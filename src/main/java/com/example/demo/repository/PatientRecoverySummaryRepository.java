@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.PatientRecoverySummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PatientRecoverySummaryRepository extends JpaRepository<PatientRecoverySummary, Long> {
+    List<PatientRecoverySummary> findByLastLogDateGreaterThanEqualAndPatientIdGreaterThanOrderByPatientIdAsc(LocalDate since, Long patientId, Pageable pageable);
+}
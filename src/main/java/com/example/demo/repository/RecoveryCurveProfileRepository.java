@@ -1,10 +1,18 @@
 package com.example.demo.repository;
 
+import com.example.demo.config.SecondLevelCacheConfig;
 import com.example.demo.model.RecoveryCurveProfile;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 
 public interface RecoveryCurveProfileRepository extends JpaRepository<RecoveryCurveProfile, Long> {
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.REFERENCE_QUERY_REGION)
+    })
     List<RecoveryCurveProfile> findBySurgeryTypeOrderByDayNumberAsc(String surgeryType);
 }
\ No newline at end of file
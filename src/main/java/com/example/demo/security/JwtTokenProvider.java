@@ -7,9 +7,11 @@ import org.springframework.stereotype.Component;
 public class JwtTokenProvider {
     
     private final JwtUtil jwtUtil;
+    private final JwtTokenVerifier jwtTokenVerifier;
     
-    public JwtTokenProvider(JwtUtil jwtUtil) {
+    public JwtTokenProvider(JwtUtil jwtUtil, JwtTokenVerifier jwtTokenVerifier) {
         this.jwtUtil = jwtUtil;
+        this.jwtTokenVerifier = jwtTokenVerifier;
     }
     
     public String generateToken(AppUser user) {
@@ -17,11 +19,6 @@ public class JwtTokenProvider {
     }
 
     public boolean validateToken(String token) {
-        try {
-            String username = jwtUtil.extractUsername(token);
-            return jwtUtil.isTokenValid(token, username);
-        } catch (Exception e) {
-            return false;
-        }
+        return jwtTokenVerifier.verify(token).isPresent();
     }
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+package com.example.demo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Verifies bearer tokens, parsing each distinct token only once.
+ *
+ * <p>Verified tokens are cached under the SHA-256 digest of the token, so the
+ * raw token is never kept, and each entry expires no later than the token
+ * itself. Invalid tokens are not cached.
+ */
+@Component
+public class JwtTokenVerifier {
+
+    private final JwtUtil jwtUtil;
+    private final Cache<String, VerifiedToken> cache;
+
+    public JwtTokenVerifier(JwtUtil jwtUtil, MeterRegistry meterRegistry,
+                            @Value("${security.jwt.cache.max-entries:10000}") long maxEntries,
+                            @Value("${security.jwt.cache.max-ttl-minutes:15}") long maxTtlMinutes) {
+        this.jwtUtil = jwtUtil;
+        long maxTtlNanos = Duration.ofMinutes(maxTtlMinutes).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        long untilExpiry = Duration.between(Instant.now(), token.getExpiresAt()).toNanos();
+                        return Math.max(0, Math.min(untilExpiry, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified");
+    }
+
+    /**
+     * Returns the token's claims, or empty when the token is malformed, badly
+     * signed or expired.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        String key = digest(token);
+        VerifiedToken verified = cache.getIfPresent(key);
+        if (verified == null) {
+            verified = parse(token);
+            if (verified == null) {
+                return Optional.empty();
+            }
+            cache.put(key, verified);
+        }
+        // Entries can outlive the token by up to the cache's timer resolution
+        if (verified.isExpired(Instant.now())) {
+            cache.invalidate(key);
+            return Optional.empty();
+        }
+        return Optional.of(verified);
+    }
+
+    private VerifiedToken parse(String token) {
+        try {
+            Claims claims = jwtUtil.parseToken(token);
+            if (claims.getSubject() == null || claims.getExpiration() == null) {
+                return null;
+            }
+            Object userId = claims.get("userId");
+            return new VerifiedToken(claims.getSubject(),
+                    userId instanceof Number ? ((Number) userId).longValue() : null,
+                    claims.get("email", String.class),
+                    claims.get("role", String.class),
+                    claims.getExpiration().toInstant());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -17,9 +17,9 @@ public class JwtUtil {
     private final String secret = "mySuperSecretKeyThatIsAtLeast32CharactersLong123";
     private final long expirationSeconds = 86400;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-    }
+    // Both are immutable and thread-safe, so they are built once rather than per call
+    private final SecretKey signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
 
     private Date getExpirationDate() {
         return new Date(System.currentTimeMillis() + expirationSeconds * 1000);
@@ -31,7 +31,7 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date())
                 .setExpiration(getExpirationDate())
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -45,10 +45,7 @@ public class JwtUtil {
     }
 
     public Claims parseToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public String extractUsername(String token) {
@@ -0,0 +1,133 @@
+package com.example.demo.security;
+
+import com.example.demo.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing and verification on a small, fixed pool so a burst of
+ * logins cannot occupy every request thread with BCrypt.
+ *
+ * <p>Work that does not fit in the queue is rejected straight away, and work
+ * that waited in the queue longer than the limit is dropped before hashing
+ * starts. Both surface as {@link ServiceBusyException}, which maps to 503.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private static final String BUSY_MESSAGE = "Too many sign-in requests in progress; please retry shortly";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long maxQueueMillis;
+
+    private final Timer encodeLatency;
+    private final Timer matchLatency;
+    private final Timer queueWait;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedQueueTimeout;
+
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                   @Value("${auth.password.threads:0}") int threads,
+                                   @Value("${auth.password.queue-capacity:64}") int queueCapacity,
+                                   @Value("${auth.password.max-queue-ms:2000}") long maxQueueMillis) {
+        this.passwordEncoder = passwordEncoder;
+        this.maxQueueMillis = maxQueueMillis;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "password-hash-" + sequence.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeLatency = Timer.builder("auth.password.hash")
+                .description("Time spent hashing or verifying a password")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchLatency = Timer.builder("auth.password.hash")
+                .description("Time spent hashing or verifying a password")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("auth.password.queue.wait")
+                .description("Time password work waited for a hashing thread")
+                .register(meterRegistry);
+        this.rejectedQueueFull = meterRegistry.counter("auth.password.rejected", "reason", "queue-full");
+        this.rejectedQueueTimeout = meterRegistry.counter("auth.password.rejected", "reason", "queue-timeout");
+        Gauge.builder("auth.password.queue.depth", executor.getQueue(), BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword), encodeLatency);
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword), matchLatency);
+    }
+
+    private <T> T run(Callable<T> work, Timer latency) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long waited = System.nanoTime() - submitted;
+                queueWait.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > TimeUnit.MILLISECONDS.toNanos(maxQueueMillis)) {
+                    throw new QueueTimeoutException();
+                }
+                return latency.recordCallable(work);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedQueueFull.increment();
+            throw new ServiceBusyException(BUSY_MESSAGE);
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof QueueTimeoutException) {
+                rejectedQueueTimeout.increment();
+                throw new ServiceBusyException(BUSY_MESSAGE);
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(BUSY_MESSAGE);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class QueueTimeoutException extends RuntimeException {
+        private QueueTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.time.Instant;
+
+/**
+ * The claims of a token whose signature and expiry have been checked. Built
+ * once per token by {@link JwtTokenVerifier} and shared between requests, and
+ * used as the principal of authenticated requests.
+ */
+public final class VerifiedToken implements AuthenticatedPrincipal {
+    private final String subject;
+    private final Long userId;
+    private final String email;
+    private final String role;
+    private final Instant expiresAt;
+
+    public VerifiedToken(String subject, Long userId, String email, String role, Instant expiresAt) {
+        this.subject = subject;
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    @Override
+    public String getName() {
+        return subject;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
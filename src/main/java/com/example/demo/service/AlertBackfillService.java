@@ -0,0 +1,17 @@
+package com.example.demo.service;
+
+import java.util.Map;
+
+public interface AlertBackfillService {
+    /**
+     * Re-evaluates every stored log against the current rules and curves in the
+     * background, resuming the latest unfinished run when there is one. A dry
+     * run only counts the alerts that would be created and removed.
+     */
+    Map<String, Object> start(boolean dryRun);
+
+    /** Stops the run on this node after the patients in progress; a later start resumes it. */
+    Map<String, Object> pause();
+
+    Map<String, Object> status();
+}
@@ -1,13 +1,16 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CursorPage;
 import com.example.demo.model.ClinicalAlertRecord;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface ClinicalAlertService {
+    List<ClinicalAlertRecord> recordAlerts(List<ClinicalAlertRecord> alerts);
     ClinicalAlertRecord resolveAlert(Long id);
     List<ClinicalAlertRecord> getAlertsByPatient(Long patientId);
     Optional<ClinicalAlertRecord> getAlertById(Long id);
     List<ClinicalAlertRecord> getAllAlerts();
+    CursorPage<ClinicalAlertRecord> getAlertsPage(Long patientId, String cursor, Integer size);
 }
\ No newline at end of file
@@ -1,11 +1,16 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.SymptomLogBatchResult;
 import com.example.demo.model.DailySymptomLog;
 
 import java.util.List;
 
 public interface DailySymptomLogService {
     DailySymptomLog recordSymptomLog(DailySymptomLog log);
+    List<SymptomLogBatchResult> recordSymptomLogs(List<DailySymptomLog> logs);
+    List<SymptomLogBatchResult> recordSymptomLogs(List<DailySymptomLog> logs, boolean evaluateAlerts);
     List<DailySymptomLog> getLogsByPatient(Long patientId);
+    CursorPage<DailySymptomLog> getLogsPageByPatient(Long patientId, String cursor, Integer size);
     DailySymptomLog updateSymptomLog(Long id, DailySymptomLog log);
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CursorPage;
 import com.example.demo.model.PatientProfile;
 
 import java.util.List;
@@ -10,5 +11,6 @@ public interface PatientProfileService {
     PatientProfile getPatientById(Long id);
     PatientProfile updatePatientStatus(Long id, boolean active);
     List<PatientProfile> getAllPatients();
+    CursorPage<PatientProfile> getPatientsPage(String cursor, Integer size);
     Optional<PatientProfile> findByPatientId(String patientId);
 }
\ No newline at end of file
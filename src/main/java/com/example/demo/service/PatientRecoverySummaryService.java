@@ -0,0 +1,14 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.PatientRecoverySummaryView;
+import com.example.demo.model.DailySymptomLog;
+
+import java.util.List;
+import java.util.Map;
+
+public interface PatientRecoverySummaryService {
+    PatientRecoverySummaryView getSummary(Long patientId);
+    void recordLogs(List<DailySymptomLog> logs, boolean newLogs);
+    PatientRecoverySummaryView rebuild(Long patientId);
+    Map<String, Long> rebuildAll();
+}
@@ -0,0 +1,10 @@
+package com.example.demo.service;
+
+import java.util.Map;
+
+public interface RuntimeStatsService {
+    Map<String, Object> snapshot();
+    Map<String, Object> alertingSnapshot();
+    Map<String, Object> symptomLogSnapshot();
+    Map<String, Object> status();
+}
@@ -0,0 +1,8 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface SymptomLogExportService {
+    long exportCohort(String surgeryType, SymptomLogFormat format, OutputStream output) throws IOException;
+}
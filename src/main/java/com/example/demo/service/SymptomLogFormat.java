@@ -0,0 +1,13 @@
+package com.example.demo.service;
+
+import java.util.List;
+
+/**
+ * Wire formats for bulk symptom log import and export. CSV files start with a
+ * header row naming {@link #CSV_COLUMNS}; NDJSON has one JSON log per line.
+ */
+public enum SymptomLogFormat {
+    NDJSON, CSV;
+
+    public static final List<String> CSV_COLUMNS = List.of("patientId", "logDate", "painLevel", "mobilityLevel", "fatigueLevel", "additionalNotes");
+}
@@ -0,0 +1,10 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SymptomLogImportSummary;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface SymptomLogImportService {
+    SymptomLogImportSummary importLogs(InputStream input, SymptomLogFormat format) throws IOException;
+}
@@ -0,0 +1,126 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.AlertBackfillPartition;
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.repository.AlertBackfillPartitionRepository;
+import com.example.demo.repository.ClinicalAlertRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Commits a partition's alert changes together with its checkpoint, so a
+ * restarted run repeats at most the patients of one uncommitted batch. Dry runs
+ * only count the changes.
+ */
+final class AlertBackfillCheckpoints {
+
+    private final TransactionTemplate transactionTemplate;
+    private final ClinicalAlertRecordRepository clinicalAlertRecordRepository;
+    private final AlertBackfillPartitionRepository partitionRepository;
+    private final int writeBatchSize;
+
+    private final Counter patientsCounter;
+    private final Counter alertsCreatedCounter;
+    private final Counter alertsUpdatedCounter;
+    private final Counter alertsRemovedCounter;
+
+    AlertBackfillCheckpoints(TransactionTemplate transactionTemplate, ClinicalAlertRecordRepository clinicalAlertRecordRepository,
+                             AlertBackfillPartitionRepository partitionRepository, MeterRegistry meterRegistry, int writeBatchSize) {
+        this.transactionTemplate = transactionTemplate;
+        this.clinicalAlertRecordRepository = clinicalAlertRecordRepository;
+        this.partitionRepository = partitionRepository;
+        this.writeBatchSize = writeBatchSize;
+        this.patientsCounter = meterRegistry.counter("alerts.backfill.patients");
+        this.alertsCreatedCounter = meterRegistry.counter("alerts.backfill.alerts", "change", "created");
+        this.alertsUpdatedCounter = meterRegistry.counter("alerts.backfill.alerts", "change", "updated");
+        this.alertsRemovedCounter = meterRegistry.counter("alerts.backfill.alerts", "change", "removed");
+    }
+
+    Batch open(AlertBackfillPartition partition, boolean dryRun) {
+        return new Batch(partition, dryRun);
+    }
+
+    /** Collects one partition's alert changes until they are flushed with its checkpoint. */
+    final class Batch {
+        private final boolean dryRun;
+        private AlertBackfillPartition partition;
+        private final List<ClinicalAlertRecord> creations = new ArrayList<>();
+        private final List<ClinicalAlertRecord> updates = new ArrayList<>();
+        private final List<Long> removals = new ArrayList<>();
+        private Long lastPatientId;
+        private long patients;
+        private long logsScanned;
+
+        private Batch(AlertBackfillPartition partition, boolean dryRun) {
+            this.partition = partition;
+            this.dryRun = dryRun;
+        }
+
+        void create(ClinicalAlertRecord alert) {
+            creations.add(alert);
+        }
+
+        void update(ClinicalAlertRecord alert) {
+            updates.add(alert);
+        }
+
+        void remove(Long alertId) {
+            removals.add(alertId);
+        }
+
+        void logsScanned(int logs) {
+            logsScanned += logs;
+        }
+
+        void patientDone(Long patientId) {
+            lastPatientId = patientId;
+            patients++;
+            patientsCounter.increment();
+            if (creations.size() + updates.size() + removals.size() >= writeBatchSize) {
+                flush(false);
+            }
+        }
+
+        void flush(boolean completed) {
+            if (lastPatientId == null && !completed) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!dryRun) {
+                    clinicalAlertRecordRepository.saveAll(creations);
+                    clinicalAlertRecordRepository.saveAll(updates);
+                    if (!removals.isEmpty()) {
+                        clinicalAlertRecordRepository.deleteAllByIdInBatch(removals);
+                    }
+                }
+                if (lastPatientId != null) {
+                    partition.setCheckpointPatientId(lastPatientId);
+                }
+                partition.setCompleted(completed);
+                partition.setPatientsProcessed(partition.getPatientsProcessed() + patients);
+                partition.setLogsScanned(partition.getLogsScanned() + logsScanned);
+                partition.setAlertsCreated(partition.getAlertsCreated() + creations.size());
+                partition.setAlertsUpdated(partition.alertsUpdatedOrZero() + updates.size());
+                partition.setAlertsRemoved(partition.getAlertsRemoved() + removals.size());
+                partition.setUpdatedAt(LocalDateTime.now());
+                partition = partitionRepository.save(partition);
+            });
+            if (!dryRun) {
+                alertsCreatedCounter.increment(creations.size());
+                alertsUpdatedCounter.increment(updates.size());
+                alertsRemovedCounter.increment(removals.size());
+            }
+            creations.clear();
+            updates.clear();
+            removals.clear();
+            lastPatientId = null;
+            patients = 0;
+            logsScanned = 0;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.AlertBackfillPartition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the patient ID range into contiguous partitions, so each one is a
+ * primary key range scan.
+ */
+final class AlertBackfillPartitions {
+
+    private AlertBackfillPartitions() {
+    }
+
+    // Each partition covers IDs after its from ID up to and including its to ID
+    static List<AlertBackfillPartition> split(Long runId, long minPatientId, long maxPatientId, int partitionCount) {
+        List<AlertBackfillPartition> partitions = new ArrayList<>();
+        long first = minPatientId - 1;
+        long width = Math.max(1, (maxPatientId - first + partitionCount - 1) / partitionCount);
+        int index = 0;
+        for (long from = first; from < maxPatientId; from += width) {
+            partitions.add(new AlertBackfillPartition(runId, index++, from, Math.min(from + width, maxPatientId)));
+        }
+        return partitions;
+    }
+}
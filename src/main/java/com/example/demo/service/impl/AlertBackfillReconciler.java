@@ -0,0 +1,237 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.alerting.AlertCoalescer;
+import com.example.demo.alerting.CompiledRuleSet;
+import com.example.demo.alerting.CurveSeries;
+import com.example.demo.alerting.PatientWindow;
+import com.example.demo.alerting.RecoveryCurveIndex;
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.PatientProfile;
+import com.example.demo.repository.ClinicalAlertRecordRepository;
+import com.example.demo.repository.DailySymptomLogRepository;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Re-scores one patient's stored logs and works out the alert changes.
+ *
+ * <p>Logs are read in (logDate, id) keyset chunks and evaluated as the pipeline
+ * would, with a fresh day window for the multi-day rules. The firings are folded
+ * into alerts as {@link AlertCoalescer} stores them and compared with the stored
+ * ones: missing alerts are created, day counts corrected and unresolved alerts
+ * that no longer apply removed, while resolved ones are kept as history.
+ */
+final class AlertBackfillReconciler {
+
+    private final DailySymptomLogRepository dailySymptomLogRepository;
+    private final ClinicalAlertRecordRepository clinicalAlertRecordRepository;
+    private final RecoveryCurveIndex recoveryCurveIndex;
+    private final AlertCoalescer alertCoalescer;
+    private final int logChunkSize;
+    private final boolean removeObsolete;
+    private final Counter logsCounter;
+
+    AlertBackfillReconciler(DailySymptomLogRepository dailySymptomLogRepository, ClinicalAlertRecordRepository clinicalAlertRecordRepository,
+                            RecoveryCurveIndex recoveryCurveIndex, AlertCoalescer alertCoalescer, int logChunkSize,
+                            boolean removeObsolete, Counter logsCounter) {
+        this.dailySymptomLogRepository = dailySymptomLogRepository;
+        this.clinicalAlertRecordRepository = clinicalAlertRecordRepository;
+        this.recoveryCurveIndex = recoveryCurveIndex;
+        this.alertCoalescer = alertCoalescer;
+        this.logChunkSize = logChunkSize;
+        this.removeObsolete = removeObsolete;
+        this.logsCounter = logsCounter;
+    }
+
+    /** Adds the patient's alert changes, for logs up to the cutoff, to the batch. */
+    void rescore(PatientProfile patient, CompiledRuleSet rules, long cutoffLogId, AlertBackfillThrottle throttle,
+                 AlertBackfillCheckpoints.Batch batch) throws InterruptedException {
+        if (patient.getCreatedAt() == null) {
+            return;
+        }
+        CurveSeries curve = recoveryCurveIndex.get(patient.getSurgeryType());
+        LocalDate surgeryDate = patient.getCreatedAt().toLocalDate();
+        PatientWindow window = rules.maxWindowDays() > 0 ? new PatientWindow(rules.maxWindowDays()) : null;
+
+        Map<AlertKey, List<ClinicalAlertRecord>> firings = new LinkedHashMap<>();
+        LocalDate scannedFrom = null;
+        LocalDate scannedThrough = null;
+        Pageable chunk = PageRequest.of(0, logChunkSize);
+        List<DailySymptomLog> logs = dailySymptomLogRepository.findByPatientIdOrderByLogDateAscIdAsc(patient.getId(), chunk);
+        while (!logs.isEmpty()) {
+            throttle.acquire(logs.size());
+            for (DailySymptomLog log : logs) {
+                if (log.getId() > cutoffLogId) {
+                    continue;
+                }
+                if (scannedFrom == null) {
+                    scannedFrom = log.getLogDate();
+                }
+                scannedThrough = log.getLogDate();
+                long daysSinceSurgery = ChronoUnit.DAYS.between(surgeryDate, log.getLogDate());
+                if (curve.covers(daysSinceSurgery)) {
+                    fire(firings, rules.evaluate(log, curve, (int) daysSinceSurgery));
+                }
+                if (window != null) {
+                    window.record(log, curve, daysSinceSurgery);
+                    fire(firings, rules.evaluateWindows(log, window));
+                }
+            }
+            batch.logsScanned(logs.size());
+            logsCounter.increment(logs.size());
+            if (logs.size() < logChunkSize) {
+                break;
+            }
+            DailySymptomLog last = logs.get(logs.size() - 1);
+            logs = dailySymptomLogRepository.findByPatientIdAfter(patient.getId(), last.getLogDate(), last.getId(), chunk);
+        }
+
+        // Resolved alerts outside the scanned days cannot cover a firing, so only those overlapping them are read
+        Map<AlertKey, List<ClinicalAlertRecord>> stored = new LinkedHashMap<>();
+        for (ClinicalAlertRecord existing : clinicalAlertRecordRepository.findOpenOrOverlapping(
+                patient.getId(), cutoffLogId, scannedFrom, scannedThrough)) {
+            stored.computeIfAbsent(AlertKey.of(existing), key -> new ArrayList<>()).add(existing);
+        }
+        Set<AlertKey> keys = new LinkedHashSet<>(firings.keySet());
+        keys.addAll(stored.keySet());
+        for (AlertKey key : keys) {
+            reconcile(firings.getOrDefault(key, List.of()), stored.getOrDefault(key, List.of()), scannedThrough, batch);
+        }
+    }
+
+    private static void fire(Map<AlertKey, List<ClinicalAlertRecord>> firings, List<ClinicalAlertRecord> alerts) {
+        for (ClinicalAlertRecord alert : alerts) {
+            firings.computeIfAbsent(AlertKey.of(alert), key -> new ArrayList<>()).add(alert);
+        }
+    }
+
+    /**
+     * Folds the firings of one alert type and severity, in date order, into
+     * alerts the way {@link AlertCoalescer} does live, and matches them to the
+     * stored unresolved alerts by the log that opened them. Days a resolved
+     * alert covers stay with it, so re-scoring never reopens what a clinician
+     * closed.
+     */
+    private void reconcile(List<ClinicalAlertRecord> firings, List<ClinicalAlertRecord> stored, LocalDate scannedThrough,
+                           AlertBackfillCheckpoints.Batch batch) {
+        List<ClinicalAlertRecord> resolvedAlerts = new ArrayList<>();
+        Map<Long, ClinicalAlertRecord> open = new HashMap<>();
+        List<ClinicalAlertRecord> obsolete = new ArrayList<>();
+        for (ClinicalAlertRecord alert : stored) {
+            if (Boolean.TRUE.equals(alert.getResolved())) {
+                resolvedAlerts.add(alert);
+            } else if (open.putIfAbsent(alert.getLogId(), alert) != null) {
+                obsolete.add(alert);
+            }
+        }
+        ResolvedDays resolved = new ResolvedDays(resolvedAlerts);
+
+        ClinicalAlertRecord current = null;
+        for (ClinicalAlertRecord firing : firings) {
+            if (resolved.covers(firing)) {
+                if (current != null) {
+                    settle(current, open, scannedThrough, batch);
+                    current = null;
+                }
+                continue;
+            }
+            if (current != null && alertCoalescer.continues(current.getLastSeenDate(), firing.getLastSeenDate())) {
+                if (firing.getLastSeenDate().isAfter(current.getLastSeenDate())) {
+                    current.setOccurrenceCount(current.getOccurrenceCount() + 1);
+                    current.setLastSeenDate(firing.getLastSeenDate());
+                }
+                continue;
+            }
+            if (current != null) {
+                settle(current, open, scannedThrough, batch);
+            }
+            current = firing;
+        }
+        if (current != null) {
+            settle(current, open, scannedThrough, batch);
+        }
+        obsolete.addAll(open.values());
+        if (removeObsolete) {
+            obsolete.forEach(alert -> batch.remove(alert.getId()));
+        }
+    }
+
+    private static void settle(ClinicalAlertRecord expected, Map<Long, ClinicalAlertRecord> open, LocalDate scannedThrough,
+                               AlertBackfillCheckpoints.Batch batch) {
+        ClinicalAlertRecord stored = open.remove(expected.getLogId());
+        if (stored == null) {
+            batch.create(expected);
+            return;
+        }
+        // Left alone once the live pipeline has extended it past the logs this run reads
+        if (stored.getLastSeenDate() != null && stored.getLastSeenDate().isAfter(scannedThrough)) {
+            return;
+        }
+        if (!Objects.equals(stored.getFirstSeenDate(), expected.getFirstSeenDate())
+                || !Objects.equals(stored.getLastSeenDate(), expected.getLastSeenDate())
+                || !Objects.equals(stored.getOccurrenceCount(), expected.getOccurrenceCount())) {
+            stored.setFirstSeenDate(expected.getFirstSeenDate());
+            stored.setLastSeenDate(expected.getLastSeenDate());
+            stored.setOccurrenceCount(expected.getOccurrenceCount());
+            batch.update(stored);
+        }
+    }
+
+    private record AlertKey(String alertType, String severity) {
+        static AlertKey of(ClinicalAlertRecord alert) {
+            return new AlertKey(alert.getAlertType(), alert.getSeverity());
+        }
+    }
+
+    /** The days covered by one type and severity's resolved alerts, looked up without scanning them. */
+    private static final class ResolvedDays {
+        // Rows stored before coalescing have no dates and cover only their own log
+        private final Set<Long> logIds = new HashSet<>();
+        // First seen day -> the latest last seen day of the alerts starting on or before it
+        private final TreeMap<LocalDate, LocalDate> coveredThrough = new TreeMap<>();
+
+        ResolvedDays(List<ClinicalAlertRecord> resolved) {
+            List<ClinicalAlertRecord> dated = new ArrayList<>();
+            for (ClinicalAlertRecord alert : resolved) {
+                if (alert.getFirstSeenDate() == null || alert.getLastSeenDate() == null) {
+                    logIds.add(alert.getLogId());
+                } else {
+                    dated.add(alert);
+                }
+            }
+            dated.sort(Comparator.comparing(ClinicalAlertRecord::getFirstSeenDate));
+            LocalDate through = null;
+            for (ClinicalAlertRecord alert : dated) {
+                if (through == null || alert.getLastSeenDate().isAfter(through)) {
+                    through = alert.getLastSeenDate();
+                }
+                coveredThrough.put(alert.getFirstSeenDate(), through);
+            }
+        }
+
+        boolean covers(ClinicalAlertRecord firing) {
+            if (logIds.contains(firing.getLogId())) {
+                return true;
+            }
+            LocalDate day = firing.getLastSeenDate();
+            Map.Entry<LocalDate, LocalDate> latest = coveredThrough.floorEntry(day);
+            return latest != null && !latest.getValue().isBefore(day);
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.alerting.AlertCoalescer;
+import com.example.demo.alerting.CompiledRuleSet;
+import com.example.demo.alerting.DeviationRuleEngine;
+import com.example.demo.alerting.RecoveryCurveIndex;
+import com.example.demo.config.VirtualThreads;
+import com.example.demo.model.AlertBackfillPartition;
+import com.example.demo.model.AlertBackfillRun;
+import com.example.demo.model.AlertBackfillStatus;
+import com.example.demo.model.PatientProfile;
+import com.example.demo.repository.AlertBackfillPartitionRepository;
+import com.example.demo.repository.AlertBackfillRunRepository;
+import com.example.demo.repository.ClinicalAlertRecordRepository;
+import com.example.demo.repository.DailySymptomLogRepository;
+import com.example.demo.repository.PatientProfileRepository;
+import com.example.demo.service.AlertBackfillService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Re-evaluates stored symptom logs after rule or curve changes, which the live
+ * pipeline only applies to logs written from then on.
+ *
+ * <p>The patient ID range is split into partitions, each walked in ID order with
+ * its own checkpoint, and a fixed number of workers take partitions in turn.
+ * {@link AlertBackfillReconciler} works out each patient's alert changes and
+ * {@link AlertBackfillCheckpoints} commits them with the checkpoint, so a restart
+ * repeats at most one batch. Runs are meant to be driven from one node at a time.
+ */
+@Service
+public class AlertBackfillServiceImpl implements AlertBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertBackfillServiceImpl.class);
+
+    private static final List<AlertBackfillStatus> RESUMABLE =
+            List.of(AlertBackfillStatus.RUNNING, AlertBackfillStatus.PAUSED, AlertBackfillStatus.FAILED);
+
+    private final PatientProfileRepository patientProfileRepository;
+    private final DailySymptomLogRepository dailySymptomLogRepository;
+    private final AlertBackfillRunRepository runRepository;
+    private final AlertBackfillPartitionRepository partitionRepository;
+    private final DeviationRuleEngine deviationRuleEngine;
+    private final AlertBackfillReconciler reconciler;
+    private final AlertBackfillCheckpoints checkpoints;
+    private final TransactionTemplate transactionTemplate;
+    private final HikariDataSource hikariDataSource;
+    private final ThreadFactory threadFactory;
+
+    private final int partitionCount;
+    private final int workerCount;
+    private final int patientPageSize;
+    private final long maxLogsPerSecond;
+    private final double maxPoolUsage;
+    private final long backoffMillis;
+    private final boolean resumeOnStartup;
+    private final long shutdownTimeoutMillis;
+
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private volatile ActiveRun active;
+
+    private final Counter backoffsCounter;
+
+    public AlertBackfillServiceImpl(PatientProfileRepository patientProfileRepository, DailySymptomLogRepository dailySymptomLogRepository,
+                                    ClinicalAlertRecordRepository clinicalAlertRecordRepository, AlertBackfillRunRepository runRepository,
+                                    AlertBackfillPartitionRepository partitionRepository, RecoveryCurveIndex recoveryCurveIndex,
+                                    DeviationRuleEngine deviationRuleEngine, AlertCoalescer alertCoalescer,
+                                    PlatformTransactionManager transactionManager,
+                                    DataSource dataSource, MeterRegistry meterRegistry,
+                                    @Value("${alerts.backfill.partitions:64}") int partitionCount,
+                                    @Value("${alerts.backfill.workers:4}") int workerCount,
+                                    @Value("${alerts.backfill.virtual-threads:false}") boolean useVirtualThreads,
+                                    @Value("${alerts.backfill.patient-page-size:200}") int patientPageSize,
+                                    @Value("${alerts.backfill.log-chunk-size:1000}") int logChunkSize,
+                                    @Value("${alerts.backfill.write-batch-size:500}") int writeBatchSize,
+                                    @Value("${alerts.backfill.max-logs-per-second:20000}") long maxLogsPerSecond,
+                                    @Value("${alerts.backfill.max-pool-usage:0.75}") double maxPoolUsage,
+                                    @Value("${alerts.backfill.backoff-ms:200}") long backoffMillis,
+                                    @Value("${alerts.backfill.remove-obsolete:true}") boolean removeObsolete,
+                                    @Value("${alerts.backfill.resume-on-startup:true}") boolean resumeOnStartup,
+                                    @Value("${alerts.backfill.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis) {
+        if (partitionCount < 1 || workerCount < 1) {
+            throw new IllegalArgumentException("alerts.backfill.partitions and alerts.backfill.workers must be at least 1");
+        }
+        this.patientProfileRepository = patientProfileRepository;
+        this.dailySymptomLogRepository = dailySymptomLogRepository;
+        this.runRepository = runRepository;
+        this.partitionRepository = partitionRepository;
+        this.deviationRuleEngine = deviationRuleEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconciler = new AlertBackfillReconciler(dailySymptomLogRepository, clinicalAlertRecordRepository, recoveryCurveIndex,
+                alertCoalescer, logChunkSize, removeObsolete, meterRegistry.counter("alerts.backfill.logs"));
+        this.checkpoints = new AlertBackfillCheckpoints(transactionTemplate, clinicalAlertRecordRepository, partitionRepository,
+                meterRegistry, writeBatchSize);
+        this.hikariDataSource = hikari(dataSource);
+        this.partitionCount = partitionCount;
+        this.workerCount = workerCount;
+        this.patientPageSize = patientPageSize;
+        this.maxLogsPerSecond = maxLogsPerSecond;
+        this.maxPoolUsage = maxPoolUsage;
+        this.backoffMillis = backoffMillis;
+        this.resumeOnStartup = resumeOnStartup;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+
+        ThreadFactory factory = null;
+        if (useVirtualThreads) {
+            factory = VirtualThreads.factory("alert-backfill-").orElse(null);
+            if (factory == null) {
+                logger.warn("Virtual threads requested for the alert backfill but not supported by this runtime; using platform threads");
+            }
+        }
+        if (factory == null) {
+            AtomicInteger sequence = new AtomicInteger();
+            factory = r -> {
+                Thread thread = new Thread(r, "alert-backfill-" + sequence.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        this.threadFactory = factory;
+
+        this.backoffsCounter = meterRegistry.counter("alerts.backfill.backoffs");
+        Gauge.builder("alerts.backfill.active", this, service -> service.isActive() ? 1 : 0).register(meterRegistry);
+    }
+
+    @Override
+    public Map<String, Object> start(boolean dryRun) {
+        stateLock.lock();
+        try {
+            if (isActive()) {
+                return status();
+            }
+            AlertBackfillRun run = runRepository.findFirstByStatusInOrderByIdDesc(RESUMABLE).orElse(null);
+            if (run != null && run.getDryRun() != dryRun) {
+                logger.info("Cancelling unfinished alert backfill run {} (dry run {}) for a new one", run.getId(), run.getDryRun());
+                updateStatus(run.getId(), AlertBackfillStatus.CANCELLED);
+                run = null;
+            }
+            launch(run != null ? run : createRun(dryRun));
+            return status();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Object> pause() {
+        ActiveRun current = active;
+        if (current != null && current.coordinator.isAlive()) {
+            current.pauseRequested = true;
+            current.stopping = true;
+        }
+        return status();
+    }
+
+    @Override
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        AlertBackfillRun run = runRepository.findFirstByOrderByIdDesc().orElse(null);
+        if (run == null) {
+            status.put("status", "NONE");
+            return status;
+        }
+        ActiveRun current = active;
+        boolean running = current != null && current.runId.equals(run.getId()) && current.coordinator.isAlive();
+        status.put("runId", run.getId());
+        status.put("status", running && current.stopping ? "STOPPING" : run.getStatus().name());
+        status.put("activeOnThisNode", running);
+        status.put("dryRun", run.getDryRun());
+        status.put("cutoffLogId", run.getCutoffLogId());
+        status.put("startedAt", run.getStartedAt());
+        status.put("updatedAt", run.getUpdatedAt());
+        status.put("finishedAt", run.getFinishedAt());
+
+        List<AlertBackfillPartition> partitions = partitionRepository.findByRunIdOrderByPartitionIndexAsc(run.getId());
+        long completed = 0, patients = 0, logs = 0, created = 0, updated = 0, removed = 0, covered = 0, span = 0;
+        for (AlertBackfillPartition partition : partitions) {
+            completed += partition.getCompleted() ? 1 : 0;
+            patients += partition.getPatientsProcessed();
+            logs += partition.getLogsScanned();
+            created += partition.getAlertsCreated();
+            updated += partition.alertsUpdatedOrZero();
+            removed += partition.getAlertsRemoved();
+            span += partition.getToPatientId() - partition.getFromPatientId();
+            covered += partition.getCompleted()
+                    ? partition.getToPatientId() - partition.getFromPatientId()
+                    : partition.getCheckpointPatientId() - partition.getFromPatientId();
+        }
+        status.put("partitions", partitions.size());
+        status.put("partitionsCompleted", completed);
+        // Share of the patient ID range checkpointed, which tracks the share of patients when IDs are dense
+        status.put("progress", span == 0 ? 1.0 : Math.round(1000.0 * covered / span) / 1000.0);
+        status.put("patientsProcessed", patients);
+        status.put("logsScanned", logs);
+        status.put(run.getDryRun() ? "alertsToCreate" : "alertsCreated", created);
+        status.put(run.getDryRun() ? "alertsToUpdate" : "alertsUpdated", updated);
+        status.put(run.getDryRun() ? "alertsToRemove" : "alertsRemoved", removed);
+        if (running) {
+            double seconds = Math.max(1.0, (System.nanoTime() - current.startedNanos) / 1e9);
+            status.put("logsPerSecond", Math.round(current.throttle.logsRead() / seconds));
+            status.put("backoffs", current.throttle.backoffs());
+        }
+        return status;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        // Only runs interrupted by a shutdown or crash; paused and failed runs wait to be started again
+        runRepository.findFirstByOrderByIdDesc()
+                .filter(run -> run.getStatus() == AlertBackfillStatus.RUNNING)
+                .ifPresent(run -> {
+                    stateLock.lock();
+                    try {
+                        if (!isActive()) {
+                            launch(run);
+                        }
+                    } finally {
+                        stateLock.unlock();
+                    }
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ActiveRun current = active;
+        if (current == null || !current.coordinator.isAlive()) {
+            return;
+        }
+        // The run stays RUNNING, so the next start resumes it from the checkpoints
+        current.stopping = true;
+        try {
+            current.coordinator.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isActive() {
+        ActiveRun current = active;
+        return current != null && current.coordinator.isAlive();
+    }
+
+    private AlertBackfillRun createRun(boolean dryRun) {
+        return transactionTemplate.execute(status -> {
+            Long cutoffLogId = dailySymptomLogRepository.findMaxId();
+            AlertBackfillRun run = runRepository.save(new AlertBackfillRun(dryRun, cutoffLogId == null ? 0L : cutoffLogId));
+            Long minPatientId = patientProfileRepository.findMinId();
+            Long maxPatientId = patientProfileRepository.findMaxId();
+            if (minPatientId != null) {
+                partitionRepository.saveAll(AlertBackfillPartitions.split(run.getId(), minPatientId, maxPatientId, partitionCount));
+            }
+            return run;
+        });
+    }
+
+    private void launch(AlertBackfillRun run) {
+        List<AlertBackfillPartition> pending = partitionRepository.findByRunIdOrderByPartitionIndexAsc(run.getId()).stream()
+                .filter(partition -> !partition.getCompleted())
+                .toList();
+        CompiledRuleSet rules = deviationRuleEngine.current();
+        ActiveRun next = new ActiveRun(run, rules, pending, stopping ->
+                new AlertBackfillThrottle(maxLogsPerSecond, hikariDataSource, maxPoolUsage, backoffMillis, backoffsCounter, stopping));
+        if (run.getStatus() != AlertBackfillStatus.RUNNING) {
+            updateStatus(run.getId(), AlertBackfillStatus.RUNNING);
+        }
+        next.coordinator = new Thread(() -> coordinate(next), "alert-backfill");
+        next.coordinator.setDaemon(true);
+        active = next;
+        next.coordinator.start();
+        logger.info("Alert backfill run {}{} started with {} partitions to go, {} rules and logs up to ID {}",
+                run.getId(), run.getDryRun() ? " (dry run)" : "", pending.size(), rules.ruleCount(), run.getCutoffLogId());
+    }
+
+    private void coordinate(ActiveRun run) {
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(workerCount, Math.max(1, run.pending.size())); i++) {
+            Thread worker = threadFactory.newThread(() -> work(run));
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                run.stopping = true;
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        AlertBackfillStatus outcome;
+        if (run.failure != null) {
+            outcome = AlertBackfillStatus.FAILED;
+        } else if (run.remaining.get() == 0) {
+            outcome = AlertBackfillStatus.COMPLETED;
+        } else if (run.pauseRequested) {
+            outcome = AlertBackfillStatus.PAUSED;
+        } else {
+            outcome = AlertBackfillStatus.RUNNING;
+        }
+        try {
+            updateStatus(run.runId, outcome);
+        } catch (RuntimeException e) {
+            logger.warn("Could not record the outcome {} of alert backfill run {}", outcome, run.runId, e);
+        }
+        logger.info("Alert backfill run {} {} after {} s: {} logs scanned, {} partitions left", run.runId,
+                outcome.name().toLowerCase(), TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - run.startedNanos),
+                run.throttle.logsRead(), run.remaining.get());
+    }
+
+    private void updateStatus(Long runId, AlertBackfillStatus outcome) {
+        transactionTemplate.executeWithoutResult(status -> runRepository.findById(runId).ifPresent(run -> {
+            run.setStatus(outcome);
+            run.setUpdatedAt(LocalDateTime.now());
+            if (outcome == AlertBackfillStatus.COMPLETED || outcome == AlertBackfillStatus.CANCELLED) {
+                run.setFinishedAt(run.getUpdatedAt());
+            }
+        }));
+    }
+
+    private void work(ActiveRun run) {
+        AlertBackfillPartition partition;
+        while (!run.stopping && (partition = run.pending.poll()) != null) {
+            try {
+                if (process(run, partition)) {
+                    run.remaining.decrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                run.stopping = true;
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // Stops the whole run; starting it again resumes every partition from its checkpoint
+                logger.error("Alert backfill run {} failed in partition {}", run.runId, partition.getPartitionIndex(), e);
+                run.failure = e;
+                run.stopping = true;
+            }
+        }
+    }
+
+    // Returns true once the partition has been walked to the end
+    private boolean process(ActiveRun run, AlertBackfillPartition partition) throws InterruptedException {
+        AlertBackfillCheckpoints.Batch batch = checkpoints.open(partition, run.dryRun);
+        Pageable page = PageRequest.of(0, patientPageSize);
+        long afterId = partition.getCheckpointPatientId();
+        List<PatientProfile> patients;
+        do {
+            patients = patientProfileRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(afterId, partition.getToPatientId(), page);
+            for (PatientProfile patient : patients) {
+                if (run.stopping) {
+                    batch.flush(false);
+                    return false;
+                }
+                reconciler.rescore(patient, run.rules, run.cutoffLogId, run.throttle, batch);
+                batch.patientDone(patient.getId());
+                afterId = patient.getId();
+            }
+            batch.flush(false);
+        } while (patients.size() == patientPageSize);
+        batch.flush(true);
+        return true;
+    }
+
+    private static HikariDataSource hikari(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException e) {
+            // Not a Hikari pool
+        }
+        return null;
+    }
+
+    private static final class ActiveRun {
+        private final Long runId;
+        private final boolean dryRun;
+        private final long cutoffLogId;
+        private final CompiledRuleSet rules;
+        private final Queue<AlertBackfillPartition> pending;
+        private final AtomicInteger remaining;
+        private final long startedNanos = System.nanoTime();
+        private final AlertBackfillThrottle throttle;
+        private Thread coordinator;
+        private volatile boolean stopping;
+        private volatile boolean pauseRequested;
+        private volatile RuntimeException failure;
+
+        ActiveRun(AlertBackfillRun run, CompiledRuleSet rules, List<AlertBackfillPartition> pending,
+                  Function<BooleanSupplier, AlertBackfillThrottle> throttle) {
+            this.runId = run.getId();
+            this.dryRun = run.getDryRun();
+            this.cutoffLogId = run.getCutoffLogId();
+            this.rules = rules;
+            this.pending = new ConcurrentLinkedQueue<>(pending);
+            this.remaining = new AtomicInteger(pending.size());
+            this.throttle = throttle.apply(() -> stopping);
+        }
+    }
+}
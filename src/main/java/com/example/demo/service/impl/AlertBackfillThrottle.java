@@ -0,0 +1,86 @@
+package com.example.demo.service.impl;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Holds one backfill run's log reads to a rate shared by all its workers, and
+ * backs off while the connection pool is busier than the allowed share.
+ */
+final class AlertBackfillThrottle {
+
+    private final long nanosPerLog;
+    private final HikariDataSource hikariDataSource;
+    private final double maxPoolUsage;
+    private final long backoffMillis;
+    private final Counter backoffsCounter;
+    private final BooleanSupplier stopping;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder logsRead = new LongAdder();
+    private final LongAdder backoffs = new LongAdder();
+    private long nextFreeNanos = System.nanoTime();
+
+    // Zero logs per second means no rate limit; a null data source or a usage of 1 disables the backoff
+    AlertBackfillThrottle(long maxLogsPerSecond, HikariDataSource hikariDataSource, double maxPoolUsage, long backoffMillis,
+                          Counter backoffsCounter, BooleanSupplier stopping) {
+        this.nanosPerLog = maxLogsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxLogsPerSecond : 0;
+        this.hikariDataSource = hikariDataSource;
+        this.maxPoolUsage = maxPoolUsage;
+        this.backoffMillis = backoffMillis;
+        this.backoffsCounter = backoffsCounter;
+        this.stopping = stopping;
+    }
+
+    /** Waits until the logs just read fit the rate and the pool has room. */
+    void acquire(int logs) throws InterruptedException {
+        logsRead.add(logs);
+        limitRate(logs);
+        if (hikariDataSource == null || maxPoolUsage >= 1.0) {
+            return;
+        }
+        while (!stopping.getAsBoolean()) {
+            HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+            if (pool == null || (pool.getThreadsAwaitingConnection() == 0
+                    && pool.getActiveConnections() <= maxPoolUsage * hikariDataSource.getMaximumPoolSize())) {
+                return;
+            }
+            backoffs.increment();
+            backoffsCounter.increment();
+            Thread.sleep(backoffMillis);
+        }
+    }
+
+    long logsRead() {
+        return logsRead.sum();
+    }
+
+    long backoffs() {
+        return backoffs.sum();
+    }
+
+    // Takes the permits at once and waits out the permits taken before them
+    private void limitRate(int logs) throws InterruptedException {
+        if (nanosPerLog == 0) {
+            return;
+        }
+        long waitNanos;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long start = Math.max(nextFreeNanos, now);
+            waitNanos = start - now;
+            nextFreeNanos = start + logs * nanosPerLog;
+        } finally {
+            lock.unlock();
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
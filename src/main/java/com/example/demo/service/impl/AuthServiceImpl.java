@@ -7,26 +7,22 @@ import com.example.demo.model.AppUser;
 import com.example.demo.model.UserRole;
 import com.example.demo.repository.AppUserRepository;
 import com.example.demo.security.JwtTokenProvider;
+import com.example.demo.security.PasswordHashingExecutor;
 import com.example.demo.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 
 @Service
 public class AuthServiceImpl implements AuthService {
 
     private final AppUserRepository appUserRepository;
-    private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
+    private final PasswordHashingExecutor passwordHashingExecutor;
     private final JwtTokenProvider jwtTokenProvider;
 
-    public AuthServiceImpl(AppUserRepository appUserRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, JwtTokenProvider jwtTokenProvider) {
+    public AuthServiceImpl(AppUserRepository appUserRepository, PasswordHashingExecutor passwordHashingExecutor, JwtTokenProvider jwtTokenProvider) {
         this.appUserRepository = appUserRepository;
-        this.passwordEncoder = passwordEncoder;
-        this.authenticationManager = authenticationManager;
+        this.passwordHashingExecutor = passwordHashingExecutor;
         this.jwtTokenProvider = jwtTokenProvider;
     }
 
@@ -34,7 +30,7 @@ public class AuthServiceImpl implements AuthService {
     public AuthResponse register(RegisterRequest request) {
         AppUser user = AppUser.builder()
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHashingExecutor.encode(request.getPassword()))
                 .fullName(request.getFullName())
                 .role(UserRole.CLINICIAN)
                 .build();
@@ -47,8 +43,10 @@ public class AuthServiceImpl implements AuthService {
     public AuthResponse login(AuthRequest request) {
         AppUser user = appUserRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new IllegalArgumentException("Invalid user"));
-        Authentication auth = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
+        // The user loaded above is checked directly, so login costs one query
+        if (!passwordHashingExecutor.matches(request.getPassword(), user.getPassword())) {
+            throw new BadCredentialsException("Bad credentials");
+        }
         String token = jwtTokenProvider.generateToken(user);
         return new AuthResponse(user.getEmail(), token);
     }
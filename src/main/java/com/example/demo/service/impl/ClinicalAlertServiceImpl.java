@@ -1,10 +1,14 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.alerting.AlertCoalescer;
+import com.example.demo.config.PaginationProperties;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.model.ClinicalAlertRecord;
 import com.example.demo.repository.ClinicalAlertRecordRepository;
 import com.example.demo.service.ClinicalAlertService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,9 +18,20 @@ import java.util.Optional;
 public class ClinicalAlertServiceImpl implements ClinicalAlertService {
 
     private final ClinicalAlertRecordRepository clinicalAlertRecordRepository;
+    private final PaginationProperties paginationProperties;
+    private final AlertCoalescer alertCoalescer;
 
-    public ClinicalAlertServiceImpl(ClinicalAlertRecordRepository clinicalAlertRecordRepository) {
+    public ClinicalAlertServiceImpl(ClinicalAlertRecordRepository clinicalAlertRecordRepository, PaginationProperties paginationProperties,
+                                    AlertCoalescer alertCoalescer) {
         this.clinicalAlertRecordRepository = clinicalAlertRecordRepository;
+        this.paginationProperties = paginationProperties;
+        this.alertCoalescer = alertCoalescer;
+    }
+
+    // Repeats of an open alert update it rather than adding rows, so only new alerts are returned
+    @Override
+    public List<ClinicalAlertRecord> recordAlerts(List<ClinicalAlertRecord> alerts) {
+        return alertCoalescer.record(alerts);
     }
 
     @Override
@@ -24,7 +39,9 @@ public class ClinicalAlertServiceImpl implements ClinicalAlertService {
         ClinicalAlertRecord alert = clinicalAlertRecordRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Alert not found"));
         alert.setResolved(true);
-        return clinicalAlertRecordRepository.save(alert);
+        ClinicalAlertRecord saved = clinicalAlertRecordRepository.save(alert);
+        alertCoalescer.forget(saved);
+        return saved;
     }
 
     @Override
@@ -41,4 +58,15 @@ public class ClinicalAlertServiceImpl implements ClinicalAlertService {
     public List<ClinicalAlertRecord> getAllAlerts() {
         return clinicalAlertRecordRepository.findAll();
     }
+
+    @Override
+    public CursorPage<ClinicalAlertRecord> getAlertsPage(Long patientId, String cursor, Integer size) {
+        int pageSize = paginationProperties.resolveSize(size);
+        long afterId = CursorPage.decodeIdCursor(cursor);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<ClinicalAlertRecord> fetched = patientId == null
+                ? clinicalAlertRecordRepository.findByIdGreaterThanOrderByIdAsc(afterId, limit)
+                : clinicalAlertRecordRepository.findByPatientIdAndIdGreaterThanOrderByIdAsc(patientId, afterId, limit);
+        return CursorPage.of(fetched, pageSize, a -> CursorPage.encodeCursor(a.getId()));
+    }
 }
\ No newline at end of file
@@ -1,64 +1,257 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.alerting.AlertEvaluationPipeline;
+import com.example.demo.alerting.PatientWindowStore;
+import com.example.demo.config.PaginationProperties;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.SymptomLogBatchResult;
+import com.example.demo.exception.DuplicateLogException;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.metrics.StageMetrics;
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
 import com.example.demo.service.DailySymptomLogService;
-import com.example.demo.service.RecoveryCurveService;
-import com.example.demo.service.DeviationRuleService;
 import com.example.demo.service.ClinicalAlertService;
+import com.example.demo.service.PatientRecoverySummaryService;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class DailySymptomLogServiceImpl implements DailySymptomLogService {
 
     private final DailySymptomLogRepository dailySymptomLogRepository;
     private final PatientProfileRepository patientProfileRepository;
-    private final RecoveryCurveService recoveryCurveService;
-    private final DeviationRuleService deviationRuleService;
     private final ClinicalAlertService clinicalAlertService;
+    private final AlertEvaluationPipeline alertEvaluationPipeline;
+    private final PaginationProperties paginationProperties;
+    private final StageMetrics stageMetrics;
+    private final PatientRecoverySummaryService patientRecoverySummaryService;
+    private final PatientWindowStore patientWindowStore;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+    private final boolean upsertDuplicates;
 
-    public DailySymptomLogServiceImpl(DailySymptomLogRepository dailySymptomLogRepository, PatientProfileRepository patientProfileRepository, RecoveryCurveService recoveryCurveService, DeviationRuleService deviationRuleService, ClinicalAlertService clinicalAlertService) {
+    public DailySymptomLogServiceImpl(DailySymptomLogRepository dailySymptomLogRepository, PatientProfileRepository patientProfileRepository, ClinicalAlertService clinicalAlertService, AlertEvaluationPipeline alertEvaluationPipeline,
+                                      PaginationProperties paginationProperties, StageMetrics stageMetrics,
+                                      PatientRecoverySummaryService patientRecoverySummaryService, PatientWindowStore patientWindowStore,
+                                      PlatformTransactionManager transactionManager, @Value("${symptom-log.batch.max-size:500}") int maxBatchSize,
+                                      @Value("${symptom-log.upsert-duplicates:false}") boolean upsertDuplicates) {
         this.dailySymptomLogRepository = dailySymptomLogRepository;
         this.patientProfileRepository = patientProfileRepository;
-        this.recoveryCurveService = recoveryCurveService;
-        this.deviationRuleService = deviationRuleService;
         this.clinicalAlertService = clinicalAlertService;
+        this.alertEvaluationPipeline = alertEvaluationPipeline;
+        this.paginationProperties = paginationProperties;
+        this.stageMetrics = stageMetrics;
+        this.patientRecoverySummaryService = patientRecoverySummaryService;
+        this.patientWindowStore = patientWindowStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatchSize = maxBatchSize;
+        this.upsertDuplicates = upsertDuplicates;
     }
 
     @Override
     public DailySymptomLog recordSymptomLog(DailySymptomLog log) {
-        PatientProfile patient = patientProfileRepository.findById(log.getPatientId())
-                .orElseThrow(() -> new ResourceNotFoundException("Patient not found"));
+        if (log.getId() != null) {
+            throw new IllegalArgumentException("New logs must not carry an ID");
+        }
+        return write(summaries -> insert(log, summaries));
+    }
+
+    private DailySymptomLog insert(DailySymptomLog log, SummaryUpdates summaries) {
+        long started = System.nanoTime();
+        PatientProfile patient = patientProfileRepository.findById(log.getPatientId()).orElse(null);
+        String surgeryType = patient == null ? null : patient.getSurgeryType();
+        long stageStarted = stageMetrics.stage(StageMetrics.LOG_WRITE, "patient_lookup", surgeryType, started);
+        if (patient == null) {
+            stageMetrics.complete(StageMetrics.LOG_WRITE, null, "patient_not_found", started);
+            throw new ResourceNotFoundException("Patient not found");
+        }
 
-        Optional<DailySymptomLog> existing = dailySymptomLogRepository.findByPatientIdAndLogDate(log.getPatientId(), log.getLogDate());
-        if (existing.isPresent()) {
-            throw new IllegalArgumentException("Log already exists for this date");
+        if (upsertDuplicates) {
+            // A failed insert marks the transaction rollback-only, so an existing day is looked up first
+            DailySymptomLog existing = dailySymptomLogRepository.findByPatientIdAndLogDate(log.getPatientId(), log.getLogDate())
+                    .orElse(null);
+            if (existing != null) {
+                return upsert(existing, log, summaries, surgeryType, started, stageStarted);
+            }
         }
 
-        DailySymptomLog saved = dailySymptomLogRepository.save(log);
+        // The unique (patient, date) constraint detects duplicates in the same round trip as the insert
+        DailySymptomLog saved;
+        try {
+            saved = dailySymptomLogRepository.saveAndFlush(log);
+        } catch (DataIntegrityViolationException e) {
+            stageMetrics.stage(StageMetrics.LOG_WRITE, "insert", surgeryType, stageStarted);
+            log.setId(null);
+            if (!isDuplicateLog(e)) {
+                stageMetrics.complete(StageMetrics.LOG_WRITE, surgeryType, "error", started);
+                throw e;
+            }
+            stageMetrics.complete(StageMetrics.LOG_WRITE, surgeryType, "duplicate", started);
+            throw new DuplicateLogException("Log already exists for this date");
+        }
+        stageStarted = stageMetrics.stage(StageMetrics.LOG_WRITE, "insert", surgeryType, stageStarted);
 
         // Trigger alerts if necessary
-        checkForAlerts(saved, patient);
+        alertEvaluationPipeline.submit(saved, patient);
+        stageStarted = stageMetrics.stage(StageMetrics.LOG_WRITE, "alert_enqueue", surgeryType, stageStarted);
+        summaries.inserted.add(saved);
+        stageMetrics.stage(StageMetrics.LOG_WRITE, "summary_update", surgeryType, stageStarted);
+        stageMetrics.complete(StageMetrics.LOG_WRITE, surgeryType, "accepted", started);
 
         return saved;
     }
 
+    private DailySymptomLog upsert(DailySymptomLog existing, DailySymptomLog log, SummaryUpdates summaries,
+                                   String surgeryType, long started, long stageStarted) {
+        DailySymptomLog updated = applyUpdate(existing, log);
+        stageStarted = stageMetrics.stage(StageMetrics.LOG_WRITE, "upsert", surgeryType, stageStarted);
+        summaries.updated.add(updated);
+        // Updated values are not re-evaluated, so the next log reloads the patient's window
+        afterCommit(() -> patientWindowStore.invalidate(updated.getPatientId()));
+        stageMetrics.stage(StageMetrics.LOG_WRITE, "summary_update", surgeryType, stageStarted);
+        stageMetrics.complete(StageMetrics.LOG_WRITE, surgeryType, "upserted", started);
+        return updated;
+    }
+
+    @Override
+    public List<SymptomLogBatchResult> recordSymptomLogs(List<DailySymptomLog> logs) {
+        return recordSymptomLogs(logs, true);
+    }
+
+    /**
+     * Records a batch of logs with one patient query for the whole batch and one
+     * duplicate query per patient. Entries are validated individually, so a bad
+     * entry is reported in its result instead of failing the batch.
+     */
+    @Override
+    public List<SymptomLogBatchResult> recordSymptomLogs(List<DailySymptomLog> logs, boolean evaluateAlerts) {
+        if (logs.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch size exceeds the maximum of " + maxBatchSize);
+        }
+        return write(summaries -> insertBatch(logs, evaluateAlerts, summaries));
+    }
+
+    private List<SymptomLogBatchResult> insertBatch(List<DailySymptomLog> logs, boolean evaluateAlerts, SummaryUpdates summaries) {
+        SymptomLogBatchResult[] results = new SymptomLogBatchResult[logs.size()];
+        Map<Long, List<Integer>> indexesByPatient = new LinkedHashMap<>();
+        for (int i = 0; i < logs.size(); i++) {
+            String error = validate(logs.get(i));
+            if (error != null) {
+                results[i] = SymptomLogBatchResult.rejected(i, error);
+            } else {
+                indexesByPatient.computeIfAbsent(logs.get(i).getPatientId(), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<Long, PatientProfile> patients = patientProfileRepository.findAllById(indexesByPatient.keySet()).stream()
+                .collect(Collectors.toMap(PatientProfile::getId, Function.identity()));
+
+        List<Integer> pending = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> entry : indexesByPatient.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            if (!patients.containsKey(entry.getKey())) {
+                indexes.forEach(i -> results[i] = SymptomLogBatchResult.rejected(i, "Patient not found"));
+                continue;
+            }
+
+            LocalDate from = indexes.stream().map(i -> logs.get(i).getLogDate()).min(Comparator.naturalOrder()).get();
+            LocalDate to = indexes.stream().map(i -> logs.get(i).getLogDate()).max(Comparator.naturalOrder()).get();
+            Set<LocalDate> taken = new HashSet<>(dailySymptomLogRepository.findLogDatesByPatientIdBetween(entry.getKey(), from, to));
+            for (Integer i : indexes) {
+                if (!taken.add(logs.get(i).getLogDate())) {
+                    results[i] = SymptomLogBatchResult.duplicate(i);
+                } else {
+                    pending.add(i);
+                }
+            }
+        }
+
+        // Insert in patient/date order so alerts are evaluated chronologically
+        pending.sort(Comparator.comparing((Integer i) -> logs.get(i).getPatientId())
+                .thenComparing(i -> logs.get(i).getLogDate()));
+        List<DailySymptomLog> saved = dailySymptomLogRepository.saveAll(pending.stream().map(logs::get).toList());
+        try {
+            dailySymptomLogRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateLog(e)) {
+                throw new DuplicateLogException("A log in this batch was recorded concurrently; retry the batch");
+            }
+            throw e;
+        }
+
+        for (int n = 0; n < saved.size(); n++) {
+            DailySymptomLog log = saved.get(n);
+            int index = pending.get(n);
+            results[index] = SymptomLogBatchResult.accepted(index, log.getId());
+            if (evaluateAlerts) {
+                alertEvaluationPipeline.submit(log, patients.get(log.getPatientId()));
+            }
+        }
+        summaries.inserted.addAll(saved);
+        if (!evaluateAlerts && !saved.isEmpty()) {
+            // Imported days skip the alert pipeline, so cached windows would miss them; they are reloaded on next use
+            Set<Long> patientIds = saved.stream().map(DailySymptomLog::getPatientId).collect(Collectors.toSet());
+            afterCommit(() -> patientIds.forEach(patientWindowStore::invalidate));
+        }
+        return List.of(results);
+    }
+
     @Override
     public List<DailySymptomLog> getLogsByPatient(Long patientId) {
         return dailySymptomLogRepository.findByPatientId(patientId);
     }
 
+    @Override
+    public CursorPage<DailySymptomLog> getLogsPageByPatient(Long patientId, String cursor, Integer size) {
+        int pageSize = paginationProperties.resolveSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<DailySymptomLog> fetched;
+        if (cursor == null) {
+            fetched = dailySymptomLogRepository.findByPatientIdOrderByLogDateAscIdAsc(patientId, limit);
+        } else {
+            String[] parts = CursorPage.decodeCursor(cursor, 2);
+            try {
+                fetched = dailySymptomLogRepository.findByPatientIdAfter(patientId, LocalDate.parse(parts[0]), Long.valueOf(parts[1]), limit);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+        return CursorPage.of(fetched, pageSize, l -> CursorPage.encodeCursor(l.getLogDate(), l.getId()));
+    }
+
     @Override
     public DailySymptomLog updateSymptomLog(Long id, DailySymptomLog log) {
         DailySymptomLog existing = dailySymptomLogRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Log not found"));
+        DailySymptomLog updated = applyUpdate(existing, log);
+        updateSummaries(List.of(updated), false);
+        afterCommit(() -> patientWindowStore.invalidate(updated.getPatientId()));
+        return updated;
+    }
+
+    private DailySymptomLog applyUpdate(DailySymptomLog existing, DailySymptomLog log) {
         existing.setPainLevel(log.getPainLevel());
         existing.setMobilityLevel(log.getMobilityLevel());
         existing.setFatigueLevel(log.getFatigueLevel());
@@ -66,28 +259,76 @@ public class DailySymptomLogServiceImpl implements DailySymptomLogService {
         return dailySymptomLogRepository.save(existing);
     }
 
-    private void checkForAlerts(DailySymptomLog log, PatientProfile patient) {
-        long daysSinceSurgery = ChronoUnit.DAYS.between(patient.getCreatedAt().toLocalDate(), log.getLogDate());
-        List<RecoveryCurveProfile> curves = recoveryCurveService.getCurveForSurgery(patient.getSurgeryType());
-        RecoveryCurveProfile curve = curves.stream()
-                .filter(c -> c.getDayNumber() == daysSinceSurgery)
-                .findFirst().orElse(null);
-
-        if (curve != null) {
-            List<DeviationRule> rules = deviationRuleService.getActiveRules();
-            for (DeviationRule rule : rules) {
-                if ("PAIN".equals(rule.getParameter()) && log.getPainLevel() > curve.getExpectedPainLevel() + rule.getThreshold()) {
-                    ClinicalAlertRecord alert = ClinicalAlertRecord.builder()
-                            .patientId(log.getPatientId())
-                            .logId(log.getId())
-                            .alertType("PAIN_SPIKE")
-                            .severity(rule.getSeverity())
-                            .message("Pain level exceeded expected")
-                            .resolved(false)
-                            .build();
-                    // Assume save is handled elsewhere or mock
-                }
+    /**
+     * Runs the write in a transaction, then applies the summary updates it
+     * collected. Each summary write takes a connection of its own, so it waits
+     * until the log transaction has released its connection. Inside an outer
+     * transaction the updates wait for that one to commit.
+     */
+    private <T> T write(Function<SummaryUpdates, T> work) {
+        SummaryUpdates summaries = new SummaryUpdates();
+        T result = transactionTemplate.execute(status -> work.apply(summaries));
+        updateSummaries(summaries.inserted, true);
+        updateSummaries(summaries.updated, false);
+        return result;
+    }
+
+    // Summaries are only updated from committed logs, so a rolled back batch leaves them untouched
+    private void updateSummaries(List<DailySymptomLog> logs, boolean newLogs) {
+        if (!logs.isEmpty()) {
+            afterCommit(() -> patientRecoverySummaryService.recordLogs(logs, newLogs));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
             }
+        });
+    }
+
+    private static boolean isDuplicateLog(DataIntegrityViolationException e) {
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof ConstraintViolationException)) {
+            cause = cause.getCause();
+        }
+        if (cause == null || ((ConstraintViolationException) cause).getConstraintName() == null) {
+            return false;
         }
+        // Dialects report the name quoted and qualified; H2 reports its backing index ("PUBLIC.UK_..._INDEX_5 ON ...")
+        String constraint = ((ConstraintViolationException) cause).getConstraintName()
+                .toLowerCase(Locale.ROOT).replaceAll("[\"`]", "").split(" ", 2)[0];
+        constraint = constraint.substring(constraint.lastIndexOf('.') + 1);
+        return constraint.equals(DailySymptomLog.UNIQUE_PATIENT_DATE) || constraint.startsWith(DailySymptomLog.UNIQUE_PATIENT_DATE + "_index_");
+    }
+
+    private String validate(DailySymptomLog log) {
+        if (log == null) {
+            return "Log is required";
+        }
+        if (log.getId() != null) {
+            return "New logs must not carry an ID";
+        }
+        if (log.getPatientId() == null || log.getLogDate() == null) {
+            return "Patient ID and log date are required";
+        }
+        if (log.getPainLevel() == null || log.getMobilityLevel() == null || log.getFatigueLevel() == null) {
+            return "Pain, mobility and fatigue levels are required";
+        }
+        if (log.getPainLevel() < 0 || log.getMobilityLevel() < 0 || log.getFatigueLevel() < 0) {
+            return "Symptom levels must not be negative";
+        }
+        return null;
+    }
+
+    private static final class SummaryUpdates {
+        private final List<DailySymptomLog> inserted = new ArrayList<>();
+        private final List<DailySymptomLog> updated = new ArrayList<>();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,8 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.alerting.DeviationRuleEngine;
+import com.example.demo.config.SecondLevelCache;
+import com.example.demo.config.SecondLevelCacheConfig;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.model.DeviationRule;
 import com.example.demo.repository.DeviationRuleRepository;
@@ -14,14 +17,22 @@ import java.util.Optional;
 public class DeviationRuleServiceImpl implements DeviationRuleService {
 
     private final DeviationRuleRepository deviationRuleRepository;
+    private final DeviationRuleEngine deviationRuleEngine;
+    private final SecondLevelCache secondLevelCache;
 
-    public DeviationRuleServiceImpl(DeviationRuleRepository deviationRuleRepository) {
+    public DeviationRuleServiceImpl(DeviationRuleRepository deviationRuleRepository, DeviationRuleEngine deviationRuleEngine,
+                                    SecondLevelCache secondLevelCache) {
         this.deviationRuleRepository = deviationRuleRepository;
+        this.deviationRuleEngine = deviationRuleEngine;
+        this.secondLevelCache = secondLevelCache;
     }
 
     @Override
     public DeviationRule createRule(DeviationRule rule) {
-        return deviationRuleRepository.save(rule);
+        DeviationRule saved = deviationRuleRepository.save(rule);
+        evict(saved);
+        deviationRuleEngine.rebuild();
+        return saved;
     }
 
     @Override
@@ -43,6 +54,17 @@ public class DeviationRuleServiceImpl implements DeviationRuleService {
         existing.setThreshold(rule.getThreshold());
         existing.setSeverity(rule.getSeverity());
         existing.setActive(rule.getActive());
-        return deviationRuleRepository.save(existing);
+        existing.setConditionType(rule.getConditionType());
+        existing.setWindowDays(rule.getWindowDays());
+        DeviationRule saved = deviationRuleRepository.save(existing);
+        evict(saved);
+        deviationRuleEngine.rebuild();
+        return saved;
+    }
+
+    // Before the rebuild, so the engine reads the rule set from the database
+    private void evict(DeviationRule rule) {
+        secondLevelCache.evict(DeviationRule.class, rule.getId());
+        secondLevelCache.evictQueries(SecondLevelCacheConfig.REFERENCE_QUERY_REGION);
     }
 }
\ No newline at end of file
@@ -1,10 +1,14 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.config.PaginationProperties;
+import com.example.demo.config.SecondLevelCache;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.model.PatientProfile;
 import com.example.demo.repository.PatientProfileRepository;
 import com.example.demo.service.PatientProfileService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,14 +18,22 @@ import java.util.Optional;
 public class PatientProfileServiceImpl implements PatientProfileService {
 
     private final PatientProfileRepository patientProfileRepository;
+    private final PaginationProperties paginationProperties;
+    private final SecondLevelCache secondLevelCache;
 
-    public PatientProfileServiceImpl(PatientProfileRepository patientProfileRepository) {
+    public PatientProfileServiceImpl(PatientProfileRepository patientProfileRepository, PaginationProperties paginationProperties,
+                                     SecondLevelCache secondLevelCache) {
         this.patientProfileRepository = patientProfileRepository;
+        this.paginationProperties = paginationProperties;
+        this.secondLevelCache = secondLevelCache;
     }
 
     @Override
     public PatientProfile createPatient(PatientProfile profile) {
-        return patientProfileRepository.save(profile);
+        // A profile posted with an existing id is merged over it
+        PatientProfile saved = patientProfileRepository.save(profile);
+        secondLevelCache.evict(PatientProfile.class, saved.getId());
+        return saved;
     }
 
     @Override
@@ -34,7 +46,9 @@ public class PatientProfileServiceImpl implements PatientProfileService {
     public PatientProfile updatePatientStatus(Long id, boolean active) {
         PatientProfile profile = getPatientById(id);
         profile.setActive(active);
-        return patientProfileRepository.save(profile);
+        PatientProfile saved = patientProfileRepository.save(profile);
+        secondLevelCache.evict(PatientProfile.class, id);
+        return saved;
     }
 
     @Override
@@ -42,8 +56,16 @@ public class PatientProfileServiceImpl implements PatientProfileService {
         return patientProfileRepository.findAll();
     }
 
+    @Override
+    public CursorPage<PatientProfile> getPatientsPage(String cursor, Integer size) {
+        int pageSize = paginationProperties.resolveSize(size);
+        long afterId = CursorPage.decodeIdCursor(cursor);
+        List<PatientProfile> fetched = patientProfileRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(fetched, pageSize, p -> CursorPage.encodeCursor(p.getId()));
+    }
+
     @Override
     public Optional<PatientProfile> findByPatientId(String patientId) {
         return patientProfileRepository.findByPatientId(patientId);
     }
-}
\ No newline at end of file
+}
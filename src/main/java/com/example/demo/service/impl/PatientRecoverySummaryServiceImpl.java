@@ -0,0 +1,398 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.alerting.SymptomParameter;
+import com.example.demo.dto.PatientRecoverySummaryView;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.PatientProfile;
+import com.example.demo.model.PatientRecoverySummary;
+import com.example.demo.model.RecoveryTrend;
+import com.example.demo.repository.DailySymptomLogRepository;
+import com.example.demo.repository.PatientProfileRepository;
+import com.example.demo.repository.PatientRecoverySummaryRepository;
+import com.example.demo.service.PatientRecoverySummaryService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import static com.example.demo.model.PatientRecoverySummary.WINDOW_DAYS;
+
+/**
+ * Keeps one {@link PatientRecoverySummary} row per patient, updated after each
+ * log write commits.
+ *
+ * <p>The row carries the last seven days of levels next to the derived
+ * averages and trends, so a write touches only that row and a fixed-size
+ * window regardless of how long the history is. Writes for a patient are
+ * serialised on this node by a striped lock and across nodes by the row
+ * version. A failed update leaves the row behind the log table until the
+ * scheduled rebuild recomputes it, which also corrects any other drift.
+ */
+@Service
+public class PatientRecoverySummaryServiceImpl implements PatientRecoverySummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PatientRecoverySummaryServiceImpl.class);
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int MIN_TREND_POINTS = 3;
+
+    private final PatientRecoverySummaryRepository summaryRepository;
+    private final DailySymptomLogRepository dailySymptomLogRepository;
+    private final PatientProfileRepository patientProfileRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final DefaultTransactionDefinition writeTransaction;
+    private final Cache<Long, PatientRecoverySummaryView> cache;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final double stableSlope;
+    private final int rebuildPageSize;
+    private final MeterRegistry meterRegistry;
+
+    private final Counter applied;
+    private final Counter retried;
+    private final Counter failed;
+
+    public PatientRecoverySummaryServiceImpl(PatientRecoverySummaryRepository summaryRepository,
+                                             DailySymptomLogRepository dailySymptomLogRepository,
+                                             PatientProfileRepository patientProfileRepository,
+                                             PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                             @Value("${patient-summary.cache.max-entries:50000}") long maxEntries,
+                                             @Value("${patient-summary.cache.ttl-minutes:10}") long ttlMinutes,
+                                             @Value("${patient-summary.trend.stable-slope:0.2}") double stableSlope,
+                                             @Value("${patient-summary.rebuild.page-size:500}") int rebuildPageSize) {
+        this.summaryRepository = summaryRepository;
+        this.dailySymptomLogRepository = dailySymptomLogRepository;
+        this.patientProfileRepository = patientProfileRepository;
+        // Runs after the log transaction has committed, including from its afterCommit callback
+        this.transactionManager = transactionManager;
+        this.writeTransaction = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stableSlope = stableSlope;
+        this.rebuildPageSize = rebuildPageSize;
+        this.meterRegistry = meterRegistry;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        // Expiry bounds how long a row updated by another node is served stale from here
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "patient-summary");
+        this.applied = meterRegistry.counter("patient.summary.updates", "result", "applied");
+        this.retried = meterRegistry.counter("patient.summary.updates", "result", "retried");
+        this.failed = meterRegistry.counter("patient.summary.updates", "result", "failed");
+    }
+
+    @Override
+    public PatientRecoverySummaryView getSummary(Long patientId) {
+        PatientRecoverySummaryView cached = cache.getIfPresent(patientId);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<PatientRecoverySummary> stored = summaryRepository.findById(patientId);
+        if (stored.isPresent()) {
+            // A concurrent write may already have cached a newer version
+            PatientRecoverySummaryView view = PatientRecoverySummaryView.of(stored.get());
+            PatientRecoverySummaryView existing = cache.asMap().putIfAbsent(patientId, view);
+            return existing != null ? existing : view;
+        }
+        if (!patientProfileRepository.existsById(patientId)) {
+            throw new ResourceNotFoundException("Patient not found");
+        }
+        // History written before the patient had a summary
+        return rebuild(patientId);
+    }
+
+    /**
+     * Applies committed logs to their patients' summaries. Never throws: a
+     * summary that cannot be updated is left for the rebuild job.
+     *
+     * @param newLogs true for inserted logs, false for logs that replaced the values of an existing one
+     */
+    @Override
+    public void recordLogs(List<DailySymptomLog> logs, boolean newLogs) {
+        Map<Long, List<DailySymptomLog>> byPatient = new LinkedHashMap<>();
+        for (DailySymptomLog log : logs) {
+            byPatient.computeIfAbsent(log.getPatientId(), k -> new ArrayList<>()).add(log);
+        }
+        byPatient.forEach((patientId, patientLogs) -> {
+            try {
+                write(patientId, summary -> applyLogs(summary, patientLogs, newLogs));
+                applied.increment(patientLogs.size());
+            } catch (RuntimeException e) {
+                failed.increment(patientLogs.size());
+                cache.invalidate(patientId);
+                logger.warn("Could not update the recovery summary of patient {}; it will be corrected by the next rebuild", patientId, e);
+            }
+        });
+    }
+
+    @Override
+    public PatientRecoverySummaryView rebuild(Long patientId) {
+        return write(patientId, this::recompute);
+    }
+
+    @Scheduled(cron = "${patient-summary.rebuild.cron:0 30 2 * * *}")
+    public void scheduledRebuild() {
+        long started = System.currentTimeMillis();
+        Map<String, Long> outcome = rebuildAll();
+        if (outcome.get("corrected") > 0 || outcome.get("failed") > 0) {
+            logger.warn("Recovery summary rebuild found drift: {} in {} ms", outcome, System.currentTimeMillis() - started);
+        } else {
+            logger.info("Recovery summary rebuild: {} in {} ms", outcome, System.currentTimeMillis() - started);
+        }
+    }
+
+    /**
+     * Recomputes every summary from the log table, one patient at a time, and
+     * reports how many were missing, wrong or already correct.
+     */
+    @Override
+    public Map<String, Long> rebuildAll() {
+        Map<String, Long> outcome = new LinkedHashMap<>();
+        for (String result : new String[]{"created", "corrected", "unchanged", "failed"}) {
+            outcome.put(result, 0L);
+        }
+        long lastId = 0L;
+        List<PatientProfile> page;
+        do {
+            page = patientProfileRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, rebuildPageSize));
+            for (PatientProfile patient : page) {
+                String result;
+                try {
+                    result = rebuildOne(patient.getId());
+                } catch (RuntimeException e) {
+                    logger.warn("Could not rebuild the recovery summary of patient {}", patient.getId(), e);
+                    result = "failed";
+                }
+                outcome.merge(result, 1L, Long::sum);
+                meterRegistry.counter("patient.summary.rebuilds", "result", result).increment();
+                lastId = patient.getId();
+            }
+        } while (page.size() == rebuildPageSize);
+        return outcome;
+    }
+
+    private String rebuildOne(Long patientId) {
+        // Left unset when the summary did not exist and was built from scratch
+        String[] result = new String[1];
+        write(patientId, summary -> {
+            Object[] before = state(summary);
+            recompute(summary);
+            result[0] = Arrays.deepEquals(before, state(summary)) ? "unchanged" : "corrected";
+        });
+        return result[0] != null ? result[0] : "created";
+    }
+
+    /**
+     * Runs the change in its own transaction under the patient's lock and
+     * caches the result. A summary that does not exist yet is built from the
+     * log table, which already holds the logs being applied, so the change is
+     * skipped for it. A conflicting write from another node is retried once on
+     * top of the newer row.
+     */
+    private PatientRecoverySummaryView write(Long patientId, Consumer<PatientRecoverySummary> change) {
+        try {
+            return writeOnce(patientId, change);
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            retried.increment();
+            return writeOnce(patientId, change);
+        }
+    }
+
+    private PatientRecoverySummaryView writeOnce(Long patientId, Consumer<PatientRecoverySummary> change) {
+        // The connection is taken before the lock: callers hold one for their own transaction, so a lock
+        // holder waiting on the pool could otherwise be blocked by the callers queued behind it
+        TransactionStatus status = transactionManager.getTransaction(writeTransaction);
+        ReentrantLock lock = locks[Math.floorMod(patientId.hashCode(), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            PatientRecoverySummary saved = writeInTransaction(patientId, change);
+            transactionManager.commit(status);
+            PatientRecoverySummaryView view = PatientRecoverySummaryView.of(saved);
+            cache.put(patientId, view);
+            return view;
+        } catch (RuntimeException | Error e) {
+            if (!status.isCompleted()) {
+                transactionManager.rollback(status);
+            }
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PatientRecoverySummary writeInTransaction(Long patientId, Consumer<PatientRecoverySummary> change) {
+        PatientRecoverySummary summary = summaryRepository.findById(patientId).orElse(null);
+        if (summary == null) {
+            summary = new PatientRecoverySummary(patientId);
+            recompute(summary);
+        } else {
+            change.accept(summary);
+        }
+        summary.setUpdatedAt(LocalDateTime.now());
+        return summaryRepository.saveAndFlush(summary);
+    }
+
+    private void applyLogs(PatientRecoverySummary summary, List<DailySymptomLog> logs, boolean newLogs) {
+        for (DailySymptomLog log : logs) {
+            apply(summary, log, newLogs);
+        }
+        derive(summary);
+    }
+
+    private static void apply(PatientRecoverySummary summary, DailySymptomLog log, boolean newLog) {
+        if (newLog) {
+            summary.setLogCount(summary.getLogCount() + 1);
+        }
+        byte[] window = summary.getRecentWindow();
+        LocalDate date = log.getLogDate();
+        LocalDate last = summary.getLastLogDate();
+        if (last == null || date.isAfter(last)) {
+            // Slide the window forward, clearing the days that enter it (at most a full window)
+            LocalDate from = last == null || ChronoUnit.DAYS.between(last, date) >= WINDOW_DAYS
+                    ? date.minusDays(WINDOW_DAYS - 1)
+                    : last.plusDays(1);
+            for (LocalDate day = from; !day.isAfter(date); day = day.plusDays(1)) {
+                for (SymptomParameter parameter : SymptomParameter.values()) {
+                    put(window, parameter, day, null);
+                }
+            }
+            summary.setLastLogDate(date);
+            last = date;
+        } else if (date.isBefore(last.minusDays(WINDOW_DAYS - 1))) {
+            // Older than the window; only the count changes
+            return;
+        }
+        for (SymptomParameter parameter : SymptomParameter.values()) {
+            put(window, parameter, date, parameter.value(log));
+        }
+        if (date.equals(last)) {
+            summary.setLatestPainLevel(log.getPainLevel());
+            summary.setLatestMobilityLevel(log.getMobilityLevel());
+            summary.setLatestFatigueLevel(log.getFatigueLevel());
+        }
+    }
+
+    // Reads only the latest log, the window and the count, so its cost does not grow with the history either
+    private void recompute(PatientRecoverySummary summary) {
+        Long patientId = summary.getPatientId();
+        summary.setLogCount(dailySymptomLogRepository.countByPatientId(patientId));
+        summary.setRecentWindow(new byte[PatientRecoverySummary.WINDOW_BYTES]);
+        summary.setLastLogDate(null);
+        summary.setLatestPainLevel(null);
+        summary.setLatestMobilityLevel(null);
+        summary.setLatestFatigueLevel(null);
+        Optional<DailySymptomLog> latest = dailySymptomLogRepository.findFirstByPatientIdOrderByLogDateDesc(patientId);
+        if (latest.isPresent()) {
+            LocalDate last = latest.get().getLogDate();
+            List<DailySymptomLog> recent = dailySymptomLogRepository.findByPatientIdAndLogDateBetween(
+                    patientId, last.minusDays(WINDOW_DAYS - 1), last);
+            recent.sort((a, b) -> a.getLogDate().compareTo(b.getLogDate()));
+            for (DailySymptomLog log : recent) {
+                apply(summary, log, false);
+            }
+        }
+        derive(summary);
+    }
+
+    // Averages and least-squares slopes over the window, oldest day first
+    private void derive(PatientRecoverySummary summary) {
+        for (SymptomParameter parameter : SymptomParameter.values()) {
+            Double average = null;
+            RecoveryTrend trend = RecoveryTrend.INSUFFICIENT_DATA;
+            LocalDate last = summary.getLastLogDate();
+            if (last != null) {
+                int n = 0;
+                double sumX = 0;
+                double sumY = 0;
+                double sumXY = 0;
+                double sumXX = 0;
+                for (int x = 0; x < WINDOW_DAYS; x++) {
+                    int level = get(summary.getRecentWindow(), parameter, last.minusDays(WINDOW_DAYS - 1 - x));
+                    if (level < 0) {
+                        continue;
+                    }
+                    n++;
+                    sumX += x;
+                    sumY += level;
+                    sumXY += (double) x * level;
+                    sumXX += (double) x * x;
+                }
+                if (n > 0) {
+                    average = Math.round(100.0 * sumY / n) / 100.0;
+                }
+                if (n >= MIN_TREND_POINTS) {
+                    double slope = (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+                    double improvement = parameter.higherIsBetter() ? slope : -slope;
+                    trend = Math.abs(slope) < stableSlope ? RecoveryTrend.STABLE
+                            : improvement > 0 ? RecoveryTrend.IMPROVING : RecoveryTrend.WORSENING;
+                }
+            }
+            switch (parameter) {
+                case PAIN -> {
+                    summary.setPainAverage7d(average);
+                    summary.setPainTrend(trend);
+                }
+                case MOBILITY -> {
+                    summary.setMobilityAverage7d(average);
+                    summary.setMobilityTrend(trend);
+                }
+                case FATIGUE -> {
+                    summary.setFatigueAverage7d(average);
+                    summary.setFatigueTrend(trend);
+                }
+            }
+        }
+    }
+
+    // The window holds two bytes per parameter and day, indexed by epoch day; 0 means no log, otherwise the level plus one
+    private static int offset(SymptomParameter parameter, LocalDate day) {
+        return (parameter.ordinal() * WINDOW_DAYS + (int) Math.floorMod(day.toEpochDay(), (long) WINDOW_DAYS)) * 2;
+    }
+
+    private static void put(byte[] window, SymptomParameter parameter, LocalDate day, Integer level) {
+        int stored = level == null ? 0 : Math.max(0, Math.min(level, 0xfffe)) + 1;
+        int offset = offset(parameter, day);
+        window[offset] = (byte) (stored >>> 8);
+        window[offset + 1] = (byte) stored;
+    }
+
+    private static int get(byte[] window, SymptomParameter parameter, LocalDate day) {
+        int offset = offset(parameter, day);
+        return (((window[offset] & 0xff) << 8) | (window[offset + 1] & 0xff)) - 1;
+    }
+
+    private static Object[] state(PatientRecoverySummary summary) {
+        return new Object[]{summary.getLogCount(), summary.getLastLogDate(), summary.getLatestPainLevel(),
+                summary.getLatestMobilityLevel(), summary.getLatestFatigueLevel(), summary.getRecentWindow()};
+    }
+}
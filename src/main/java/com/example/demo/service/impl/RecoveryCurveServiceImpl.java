@@ -1,5 +1,10 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.alerting.CurveSeries;
+import com.example.demo.alerting.PatientWindowStore;
+import com.example.demo.alerting.RecoveryCurveIndex;
+import com.example.demo.config.SecondLevelCache;
+import com.example.demo.config.SecondLevelCacheConfig;
 import com.example.demo.model.RecoveryCurveProfile;
 import com.example.demo.repository.RecoveryCurveProfileRepository;
 import com.example.demo.service.RecoveryCurveService;
@@ -12,14 +17,31 @@ import java.util.List;
 public class RecoveryCurveServiceImpl implements RecoveryCurveService {
 
     private final RecoveryCurveProfileRepository recoveryCurveProfileRepository;
+    private final RecoveryCurveIndex recoveryCurveIndex;
+    private final SecondLevelCache secondLevelCache;
+    private final PatientWindowStore patientWindowStore;
 
-    public RecoveryCurveServiceImpl(RecoveryCurveProfileRepository recoveryCurveProfileRepository) {
+    public RecoveryCurveServiceImpl(RecoveryCurveProfileRepository recoveryCurveProfileRepository, RecoveryCurveIndex recoveryCurveIndex,
+                                    SecondLevelCache secondLevelCache, PatientWindowStore patientWindowStore) {
         this.recoveryCurveProfileRepository = recoveryCurveProfileRepository;
+        this.recoveryCurveIndex = recoveryCurveIndex;
+        this.secondLevelCache = secondLevelCache;
+        this.patientWindowStore = patientWindowStore;
     }
 
     @Override
     public RecoveryCurveProfile createCurveEntry(RecoveryCurveProfile curve) {
-        return recoveryCurveProfileRepository.save(curve);
+        if (!CurveSeries.inRange(curve.getDayNumber())) {
+            throw new IllegalArgumentException("dayNumber must be between 0 and " + CurveSeries.MAX_DAY_NUMBER);
+        }
+        RecoveryCurveProfile saved = recoveryCurveProfileRepository.save(curve);
+        // Before the reload, so the index reads the curve from the database
+        secondLevelCache.evict(RecoveryCurveProfile.class, saved.getId());
+        secondLevelCache.evictQueries(SecondLevelCacheConfig.REFERENCE_QUERY_REGION);
+        recoveryCurveIndex.reload(saved.getSurgeryType());
+        // Windows hold deviations from the old curve
+        patientWindowStore.invalidateAll();
+        return saved;
     }
 
     @Override
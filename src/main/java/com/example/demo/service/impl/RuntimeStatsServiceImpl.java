@@ -0,0 +1,350 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.alerting.AlertEvaluationPipeline;
+import com.example.demo.alerting.AlertWriteBehindSink;
+import com.example.demo.config.SecondLevelCache;
+import com.example.demo.metrics.StageMetrics;
+import com.example.demo.service.RuntimeStatsService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the runtime snapshot served by the status endpoints from the JVM's
+ * management beans, the connection pool and the meter registry.
+ *
+ * <p>Request rates are sampled on a fixed interval, so they show current
+ * traffic whoever polls and how often; until the second sample they are the
+ * average since startup.
+ */
+@Service
+public class RuntimeStatsServiceImpl implements RuntimeStatsService {
+
+    private static final double POOL_SATURATION = 0.9;
+    private static final double QUEUE_SATURATION = 0.8;
+    private static final double HEAP_SATURATION = 0.9;
+    private static final double MB = 1024 * 1024;
+
+    private final MeterRegistry meterRegistry;
+    private final DataSource dataSource;
+    private final AlertEvaluationPipeline alertEvaluationPipeline;
+    private final AlertWriteBehindSink alertWriteBehindSink;
+    private final SecondLevelCache secondLevelCache;
+
+    // Written only by the sampler
+    private Map<String, Long> previousCounts = Map.of();
+    private long previousSampleNanos;
+    private volatile Map<String, Double> rates = Map.of();
+
+    public RuntimeStatsServiceImpl(MeterRegistry meterRegistry, DataSource dataSource,
+                                   AlertEvaluationPipeline alertEvaluationPipeline, AlertWriteBehindSink alertWriteBehindSink,
+                                   SecondLevelCache secondLevelCache) {
+        this.meterRegistry = meterRegistry;
+        this.dataSource = dataSource;
+        this.alertEvaluationPipeline = alertEvaluationPipeline;
+        this.alertWriteBehindSink = alertWriteBehindSink;
+        this.secondLevelCache = secondLevelCache;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("status", status());
+        snapshot.put("http", httpStats());
+        snapshot.put("database", databaseStats());
+        snapshot.put("memory", memoryStats());
+        snapshot.put("gc", gcStats());
+        snapshot.put("threads", threadStats());
+        snapshot.put("caches", cacheStats());
+        snapshot.put("secondLevelCache", secondLevelCache.stats());
+        snapshot.put("alerting", alertingSnapshot());
+        return snapshot;
+    }
+
+    @Override
+    public Map<String, Object> alertingSnapshot() {
+        Map<String, Object> alerting = new LinkedHashMap<>();
+        alerting.put("pipeline", alertEvaluationPipeline.stats());
+        alerting.put("sink", alertWriteBehindSink.stats());
+        alerting.put("evaluations", outcomeStats(StageMetrics.ALERT_EVALUATION));
+        return alerting;
+    }
+
+    @Override
+    public Map<String, Object> symptomLogSnapshot() {
+        Map<String, Object> symptomLogs = new LinkedHashMap<>();
+        symptomLogs.put("writes", outcomeStats(StageMetrics.LOG_WRITE));
+        symptomLogs.put("stages", stageStats(StageMetrics.LOG_WRITE + ".stage"));
+        symptomLogs.put("alertQueueDepth", alertEvaluationPipeline.queueDepth());
+        return symptomLogs;
+    }
+
+    @Override
+    public Map<String, Object> status() {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        List<String> warnings = new ArrayList<>();
+
+        HikariPoolMXBean pool = hikariPool();
+        if (pool != null && pool.getTotalConnections() > 0
+                && (double) pool.getActiveConnections() / pool.getTotalConnections() >= POOL_SATURATION
+                && pool.getThreadsAwaitingConnection() > 0) {
+            warnings.add("Connection pool saturated: " + pool.getThreadsAwaitingConnection() + " threads waiting");
+        }
+        if (alertEvaluationPipeline.queueDepth() >= alertEvaluationPipeline.capacity() * QUEUE_SATURATION) {
+            warnings.add("Alert queue above " + (int) (QUEUE_SATURATION * 100) + "% of capacity");
+        }
+        if (((Number) alertWriteBehindSink.stats().get("lost")).longValue() > 0) {
+            warnings.add("Alerts were lost after failed writes");
+        }
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        if (heap.getMax() > 0 && (double) heap.getUsed() / heap.getMax() >= HEAP_SATURATION) {
+            warnings.add("Heap above " + (int) (HEAP_SATURATION * 100) + "% of maximum");
+        }
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("status", warnings.isEmpty() ? "UP" : "DEGRADED");
+        status.put("warnings", warnings);
+        status.put("startedAt", Instant.ofEpochMilli(runtime.getStartTime()).toString());
+        status.put("uptimeSeconds", TimeUnit.MILLISECONDS.toSeconds(runtime.getUptime()));
+        status.put("javaVersion", Runtime.version().toString());
+        status.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        return status;
+    }
+
+    @Scheduled(fixedRateString = "${runtime-stats.rate-interval-ms:10000}")
+    public void sampleRates() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Timer timer : meterRegistry.find("http.server.requests").timers()) {
+            counts.merge(endpoint(timer), timer.count(), Long::sum);
+        }
+        long now = System.nanoTime();
+        double seconds = previousSampleNanos == 0
+                ? ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0
+                : (now - previousSampleNanos) / 1e9;
+        double interval = Math.max(seconds, 0.001);
+        Map<String, Long> previous = previousCounts;
+        Map<String, Double> sampled = new TreeMap<>();
+        counts.forEach((endpoint, count) -> sampled.put(endpoint, round((count - previous.getOrDefault(endpoint, 0L)) / interval)));
+        previousCounts = counts;
+        previousSampleNanos = now;
+        rates = sampled;
+    }
+
+    private Map<String, Object> httpStats() {
+        Map<String, Map<String, Object>> endpoints = new TreeMap<>();
+        for (Timer timer : meterRegistry.find("http.server.requests").timers()) {
+            String status = timer.getId().getTag("status");
+            Map<String, Object> stats = endpoints.computeIfAbsent(endpoint(timer), e -> new LinkedHashMap<>());
+            stats.merge("requests", timer.count(), (a, b) -> (Long) a + (Long) b);
+            if (status != null && status.startsWith("5")) {
+                stats.merge("serverErrors", timer.count(), (a, b) -> (Long) a + (Long) b);
+            }
+            // Percentiles are per status; the busiest status code is the representative one
+            if (!stats.containsKey("latencyMillis") || timer.count() > (Long) stats.get("latencySampleSize")) {
+                stats.put("latencySampleSize", timer.count());
+                stats.put("latencyMillis", latency(timer));
+            }
+        }
+
+        Map<String, Double> rates = this.rates;
+        Map<String, Object> http = new LinkedHashMap<>();
+        endpoints.forEach((endpoint, stats) -> {
+            stats.remove("latencySampleSize");
+            stats.putIfAbsent("serverErrors", 0L);
+            stats.put("requestsPerSecond", rates.getOrDefault(endpoint, 0.0));
+            http.put(endpoint, stats);
+        });
+        return http;
+    }
+
+    private static String endpoint(Timer timer) {
+        return timer.getId().getTag("method") + " " + timer.getId().getTag("uri");
+    }
+
+    private Map<String, Object> databaseStats() {
+        Map<String, Object> database = new LinkedHashMap<>();
+        HikariPoolMXBean pool = hikariPool();
+        if (pool != null) {
+            int total = pool.getTotalConnections();
+            database.put("activeConnections", pool.getActiveConnections());
+            database.put("idleConnections", pool.getIdleConnections());
+            database.put("totalConnections", total);
+            database.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+            database.put("utilization", total == 0 ? 0.0 : round((double) pool.getActiveConnections() / total));
+        }
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").timer();
+        if (acquire != null) {
+            database.put("meanAcquireMillis", round(acquire.mean(TimeUnit.MILLISECONDS)));
+            database.put("maxAcquireMillis", round(acquire.max(TimeUnit.MILLISECONDS)));
+        }
+        Gauge permitsWaiting = meterRegistry.find("db.permits.waiting").gauge();
+        if (permitsWaiting != null) {
+            database.put("permitsWaiting", (long) permitsWaiting.value());
+        }
+        return database;
+    }
+
+    private Map<String, Object> memoryStats() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("heap", usage(memory.getHeapMemoryUsage()));
+        stats.put("nonHeap", usage(memory.getNonHeapMemoryUsage()));
+        Map<String, Object> buffers = new LinkedHashMap<>();
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            Map<String, Object> buffer = new LinkedHashMap<>();
+            buffer.put("count", pool.getCount());
+            buffer.put("usedMb", round(pool.getMemoryUsed() / MB));
+            buffer.put("capacityMb", round(pool.getTotalCapacity() / MB));
+            buffers.put(pool.getName(), buffer);
+        }
+        stats.put("bufferPools", buffers);
+        return stats;
+    }
+
+    private Map<String, Object> gcStats() {
+        Map<String, Object> gc = new LinkedHashMap<>();
+        long totalCount = 0;
+        long totalMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("collections", collector.getCollectionCount());
+            stats.put("totalMillis", collector.getCollectionTime());
+            gc.put(collector.getName(), stats);
+            totalCount += Math.max(0, collector.getCollectionCount());
+            totalMillis += Math.max(0, collector.getCollectionTime());
+        }
+        gc.put("totalCollections", totalCount);
+        gc.put("totalMillis", totalMillis);
+        Timer pauses = meterRegistry.find("jvm.gc.pause").timer();
+        if (pauses != null) {
+            gc.put("maxRecentPauseMillis", round(pauses.max(TimeUnit.MILLISECONDS)));
+        }
+        return gc;
+    }
+
+    private Map<String, Object> threadStats() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("live", threads.getThreadCount());
+        stats.put("peak", threads.getPeakThreadCount());
+        stats.put("daemon", threads.getDaemonThreadCount());
+        return stats;
+    }
+
+    private Map<String, Object> cacheStats() {
+        Map<String, long[]> hitsAndMisses = new TreeMap<>();
+        for (Meter meter : meterRegistry.find("cache.gets").meters()) {
+            String cache = meter.getId().getTag("cache");
+            String result = meter.getId().getTag("result");
+            if (cache == null || !(meter instanceof FunctionCounter counter)) {
+                continue;
+            }
+            long[] totals = hitsAndMisses.computeIfAbsent(cache, c -> new long[2]);
+            if ("hit".equals(result)) {
+                totals[0] += (long) counter.count();
+            } else if ("miss".equals(result)) {
+                totals[1] += (long) counter.count();
+            }
+        }
+        Map<String, Object> caches = new LinkedHashMap<>();
+        hitsAndMisses.forEach((cache, totals) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("hits", totals[0]);
+            stats.put("misses", totals[1]);
+            long lookups = totals[0] + totals[1];
+            stats.put("hitRatio", lookups == 0 ? 0.0 : round((double) totals[0] / lookups));
+            Gauge size = meterRegistry.find("cache.size").tag("cache", cache).gauge();
+            if (size != null) {
+                stats.put("size", (long) size.value());
+            }
+            caches.put(cache, stats);
+        });
+        return caches;
+    }
+
+    private Map<String, Object> outcomeStats(String name) {
+        Map<String, Object> outcomes = new TreeMap<>();
+        for (Timer timer : meterRegistry.find(name).timers()) {
+            String key = timer.getId().getTag("surgeryType") + "/" + timer.getId().getTag("outcome");
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", timer.count());
+            stats.put("latencyMillis", latency(timer));
+            outcomes.put(key, stats);
+        }
+        return outcomes;
+    }
+
+    private Map<String, Object> stageStats(String name) {
+        Map<String, Object> stages = new TreeMap<>();
+        for (Timer timer : meterRegistry.find(name).timers()) {
+            String key = timer.getId().getTag("surgeryType") + "/" + timer.getId().getTag("stage");
+            stages.put(key, latency(timer));
+        }
+        return stages;
+    }
+
+    private HikariPoolMXBean hikariPool() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            }
+        } catch (SQLException e) {
+            // Not a Hikari pool
+        }
+        return null;
+    }
+
+    private static Map<String, Object> latency(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("mean", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            latency.put("p" + formatPercentile(percentile.percentile()), round(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        latency.put("max", round(snapshot.max(TimeUnit.MILLISECONDS)));
+        return latency;
+    }
+
+    private static Map<String, Object> usage(MemoryUsage usage) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("usedMb", round(usage.getUsed() / MB));
+        stats.put("committedMb", round(usage.getCommitted() / MB));
+        stats.put("maxMb", usage.getMax() < 0 ? null : round(usage.getMax() / MB));
+        return stats;
+    }
+
+    private static String formatPercentile(double percentile) {
+        // 0.5 -> 50, 0.99 -> 99, 0.999 -> 99.9
+        return BigDecimal.valueOf(percentile).movePointRight(2).stripTrailingZeros().toPlainString();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
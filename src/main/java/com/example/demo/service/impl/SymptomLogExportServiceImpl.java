@@ -0,0 +1,104 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.repository.DailySymptomLogRepository;
+import com.example.demo.service.SymptomLogExportService;
+import com.example.demo.service.SymptomLogFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a cohort's logs to the output as the database cursor advances. Each row
+ * is detached once written, so memory stays flat regardless of the row count.
+ */
+@Service
+public class SymptomLogExportServiceImpl implements SymptomLogExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SymptomLogExportServiceImpl.class);
+
+    private final DailySymptomLogRepository dailySymptomLogRepository;
+    private final ObjectWriter logWriter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SymptomLogExportServiceImpl(DailySymptomLogRepository dailySymptomLogRepository, ObjectMapper objectMapper) {
+        this.dailySymptomLogRepository = dailySymptomLogRepository;
+        this.logWriter = objectMapper.writerFor(DailySymptomLog.class);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportCohort(String surgeryType, SymptomLogFormat format, OutputStream output) throws IOException {
+        long started = System.currentTimeMillis();
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == SymptomLogFormat.CSV) {
+            writer.write(String.join(",", SymptomLogFormat.CSV_COLUMNS));
+            writer.write('\n');
+        }
+
+        try (Stream<DailySymptomLog> logs = dailySymptomLogRepository.streamBySurgeryType(surgeryType)) {
+            Iterator<DailySymptomLog> iterator = logs.iterator();
+            while (iterator.hasNext()) {
+                DailySymptomLog log = iterator.next();
+                if (format == SymptomLogFormat.CSV) {
+                    writeCsvRow(writer, log);
+                } else {
+                    writer.write(logWriter.writeValueAsString(log));
+                    writer.write('\n');
+                }
+                entityManager.detach(log);
+                rows++;
+            }
+        }
+        writer.flush();
+
+        logger.info("Exported {} symptom logs for surgery type {} in {} ms", rows, surgeryType, System.currentTimeMillis() - started);
+        return rows;
+    }
+
+    private void writeCsvRow(Writer writer, DailySymptomLog log) throws IOException {
+        writer.write(String.valueOf(log.getPatientId()));
+        writer.write(',');
+        writer.write(String.valueOf(log.getLogDate()));
+        writer.write(',');
+        writer.write(valueOrEmpty(log.getPainLevel()));
+        writer.write(',');
+        writer.write(valueOrEmpty(log.getMobilityLevel()));
+        writer.write(',');
+        writer.write(valueOrEmpty(log.getFatigueLevel()));
+        writer.write(',');
+        writer.write(quoteCsv(log.getAdditionalNotes()));
+        writer.write('\n');
+    }
+
+    private static String valueOrEmpty(Integer value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String quoteCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
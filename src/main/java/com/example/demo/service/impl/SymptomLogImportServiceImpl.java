@@ -0,0 +1,291 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.dto.SymptomLogBatchResult;
+import com.example.demo.dto.SymptomLogImportSummary;
+import com.example.demo.exception.DuplicateLogException;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.service.DailySymptomLogService;
+import com.example.demo.service.SymptomLogFormat;
+import com.example.demo.service.SymptomLogImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads an import line by line and hands it to {@link DailySymptomLogService}
+ * in fixed-size chunks, each committed in its own transaction. Only the current
+ * chunk is held in memory, so the footprint does not grow with the file size.
+ * A quoted CSV field may span lines, so notes exported with line breaks read
+ * back unchanged.
+ */
+@Service
+public class SymptomLogImportServiceImpl implements SymptomLogImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SymptomLogImportServiceImpl.class);
+
+    // A record is cut off past these, so a stray quote cannot pull the rest of the input into memory
+    private static final int MAX_RECORD_CHARS = 64 * 1024;
+    private static final int MAX_RECORD_LINE_BREAKS = 100;
+
+    private final DailySymptomLogService dailySymptomLogService;
+    private final ObjectReader logReader;
+    private final int chunkSize;
+    private final long progressInterval;
+
+    public SymptomLogImportServiceImpl(DailySymptomLogService dailySymptomLogService, ObjectMapper objectMapper,
+                                       @Value("${symptom-log.import.chunk-size:500}") int chunkSize,
+                                       @Value("${symptom-log.import.progress-interval:100000}") long progressInterval,
+                                       @Value("${symptom-log.batch.max-size:500}") int maxBatchSize) {
+        if (chunkSize < 1 || chunkSize > maxBatchSize) {
+            throw new IllegalArgumentException("symptom-log.import.chunk-size must be between 1 and symptom-log.batch.max-size (" + maxBatchSize + ")");
+        }
+        this.dailySymptomLogService = dailySymptomLogService;
+        this.logReader = objectMapper.readerFor(DailySymptomLog.class);
+        this.chunkSize = chunkSize;
+        this.progressInterval = progressInterval;
+    }
+
+    @Override
+    public SymptomLogImportSummary importLogs(InputStream input, SymptomLogFormat format) throws IOException {
+        long started = System.currentTimeMillis();
+        SymptomLogImportSummary summary = new SymptomLogImportSummary();
+        List<DailySymptomLog> chunk = new ArrayList<>(chunkSize);
+        long[] chunkLines = new long[chunkSize];
+        long nextProgress = progressInterval;
+
+        RecordReader reader = new RecordReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)),
+                format == SymptomLogFormat.CSV);
+        Map<String, Integer> csvHeader = null;
+        long nextLineNumber = 1;
+        String line;
+        while ((line = reader.next()) != null) {
+            // Rows are reported by the line they start on
+            long lineNumber = nextLineNumber;
+            nextLineNumber += 1 + reader.lineBreaks;
+            if (reader.tooLong) {
+                if (format == SymptomLogFormat.CSV && csvHeader == null) {
+                    throw new IllegalArgumentException("CSV header is too long");
+                }
+                summary.addRejected(lineNumber, "Row exceeds " + MAX_RECORD_CHARS + " characters or " + MAX_RECORD_LINE_BREAKS + " line breaks");
+                continue;
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == SymptomLogFormat.CSV && csvHeader == null) {
+                csvHeader = parseCsvHeader(line);
+                continue;
+            }
+
+            DailySymptomLog log;
+            try {
+                log = format == SymptomLogFormat.CSV ? parseCsvRow(line, csvHeader) : parseJsonRow(line);
+            } catch (IllegalArgumentException e) {
+                summary.addRejected(lineNumber, e.getMessage());
+                continue;
+            }
+
+            chunkLines[chunk.size()] = lineNumber;
+            chunk.add(log);
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, chunkLines, summary);
+                if (summary.getTotalRows() >= nextProgress) {
+                    logger.info("Symptom log import progress: {} rows ({} accepted, {} duplicate, {} rejected)",
+                            summary.getTotalRows(), summary.getAccepted(), summary.getDuplicate(), summary.getRejected());
+                    nextProgress += progressInterval;
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, chunkLines, summary);
+        }
+
+        summary.setDurationMillis(System.currentTimeMillis() - started);
+        logger.info("Symptom log import finished: {} rows ({} accepted, {} duplicate, {} rejected) in {} ms",
+                summary.getTotalRows(), summary.getAccepted(), summary.getDuplicate(), summary.getRejected(), summary.getDurationMillis());
+        return summary;
+    }
+
+    private void writeChunk(List<DailySymptomLog> chunk, long[] chunkLines, SymptomLogImportSummary summary) {
+        // Historical rows are stored without alert evaluation
+        List<SymptomLogBatchResult> results;
+        try {
+            results = dailySymptomLogService.recordSymptomLogs(chunk, false);
+        } catch (DuplicateLogException e) {
+            // Another writer stored one of these days meanwhile; the retry reports it as a duplicate row
+            chunk.forEach(log -> log.setId(null));
+            try {
+                results = dailySymptomLogService.recordSymptomLogs(chunk, false);
+            } catch (DuplicateLogException retryFailure) {
+                chunk.forEach(log -> log.setId(null));
+                results = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(SymptomLogBatchResult.rejected(i, retryFailure.getMessage()));
+                }
+            }
+        }
+        for (SymptomLogBatchResult result : results) {
+            switch (result.getStatus()) {
+                case ACCEPTED -> summary.addAccepted();
+                case DUPLICATE -> summary.addDuplicate();
+                case REJECTED -> summary.addRejected(chunkLines[result.getIndex()], result.getMessage());
+            }
+        }
+        chunk.clear();
+    }
+
+    private DailySymptomLog parseJsonRow(String line) {
+        try {
+            return logReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Map<String, Integer> parseCsvHeader(String line) {
+        List<String> names = splitCsv(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            header.put(names.get(i).trim(), i);
+        }
+        for (String column : SymptomLogFormat.CSV_COLUMNS.subList(0, 5)) {
+            if (!header.containsKey(column)) {
+                throw new IllegalArgumentException("CSV header is missing column: " + column);
+            }
+        }
+        return header;
+    }
+
+    private DailySymptomLog parseCsvRow(String line, Map<String, Integer> header) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() < header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " columns but found " + fields.size());
+        }
+        try {
+            Integer notesColumn = header.get("additionalNotes");
+            return DailySymptomLog.builder()
+                    .patientId(Long.valueOf(fields.get(header.get("patientId")).trim()))
+                    .logDate(LocalDate.parse(fields.get(header.get("logDate")).trim()))
+                    .painLevel(Integer.valueOf(fields.get(header.get("painLevel")).trim()))
+                    .mobilityLevel(Integer.valueOf(fields.get(header.get("mobilityLevel")).trim()))
+                    .fatigueLevel(Integer.valueOf(fields.get(header.get("fatigueLevel")).trim()))
+                    .additionalNotes(notesColumn == null || fields.get(notesColumn).isEmpty() ? null : fields.get(notesColumn))
+                    .build();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid value: " + e.getMessage());
+        }
+    }
+
+    private List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    /**
+     * Reads one row at a time. With quoted fields, a CSV row runs on past a line
+     * break while a quote is open and keeps that line break as it is. A row longer
+     * than the limits is cut off and the rest of its line skipped.
+     */
+    private static final class RecordReader {
+        private final BufferedReader reader;
+        private final boolean quotedFields;
+        private final StringBuilder record = new StringBuilder();
+        // Describe the last row returned
+        private int lineBreaks;
+        private boolean tooLong;
+
+        private RecordReader(BufferedReader reader, boolean quotedFields) {
+            this.reader = reader;
+            this.quotedFields = quotedFields;
+        }
+
+        /** Returns the next row without its line break, or null at the end of the input. */
+        private String next() throws IOException {
+            record.setLength(0);
+            lineBreaks = 0;
+            tooLong = false;
+            boolean quoted = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (c == '"' && quotedFields) {
+                    // An escaped quote toggles twice
+                    quoted = !quoted;
+                } else if (c == '\n') {
+                    if (!quoted) {
+                        return withoutCarriageReturn();
+                    }
+                    if (++lineBreaks > MAX_RECORD_LINE_BREAKS) {
+                        // That line break ends the row
+                        lineBreaks--;
+                        tooLong = true;
+                        return "";
+                    }
+                }
+                if (record.length() == MAX_RECORD_CHARS) {
+                    tooLong = true;
+                    skipLine();
+                    return "";
+                }
+                record.append((char) c);
+            }
+            return record.isEmpty() ? null : withoutCarriageReturn();
+        }
+
+        private void skipLine() throws IOException {
+            int c;
+            do {
+                c = reader.read();
+            } while (c != -1 && c != '\n');
+        }
+
+        private String withoutCarriageReturn() {
+            int end = record.length();
+            if (end > 0 && record.charAt(end - 1) == '\r') {
+                record.setLength(end - 1);
+            }
+            return record.toString();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+
+/**
+ * Full application context on the embedded H2 database of the test profile.
+ * Integration tests extend this so they share one cached context.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class AbstractIntegrationTest extends AbstractTestNGSpringContextTests {
+}
@@ -0,0 +1,160 @@
+package com.example.demo.alerting;
+
+import com.example.demo.AbstractIntegrationTest;
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.repository.ClinicalAlertRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+
+public class AlertCoalescerTest extends AbstractIntegrationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+
+    @Autowired
+    private AlertCoalescer alertCoalescer;
+
+    @Autowired
+    private ClinicalAlertRecordRepository clinicalAlertRecordRepository;
+
+    @Test
+    public void countsDistinctDaysIncludingLateLogs() {
+        long patientId = 910001L;
+        List<ClinicalAlertRecord> opened = alertCoalescer.record(List.of(firing(patientId, 11L, DAY)));
+        assertEquals(opened.size(), 1);
+        Long id = opened.get(0).getId();
+
+        alertCoalescer.record(List.of(firing(patientId, 15L, DAY.plusDays(4))));
+        // Late log between the first and last seen days, then a repeat of the last seen day
+        alertCoalescer.record(List.of(firing(patientId, 13L, DAY.plusDays(2))));
+        alertCoalescer.record(List.of(firing(patientId, 15L, DAY.plusDays(4))));
+
+        ClinicalAlertRecord alert = clinicalAlertRecordRepository.findById(id).orElseThrow();
+        assertEquals(alert.getOccurrenceCount(), Integer.valueOf(3));
+        assertEquals(alert.getFirstSeenDate(), DAY);
+        assertEquals(alert.getLastSeenDate(), DAY.plusDays(4));
+        assertEquals(alert.getLogId(), Long.valueOf(11L));
+    }
+
+    @Test
+    public void lateLogBeforeFirstSeenDayOpensTheAlert() {
+        long patientId = 910002L;
+        Long id = alertCoalescer.record(List.of(firing(patientId, 21L, DAY))).get(0).getId();
+
+        // Two rules of the same type firing on one late log count its day once
+        alertCoalescer.record(List.of(firing(patientId, 19L, DAY.minusDays(2)), firing(patientId, 19L, DAY.minusDays(2))));
+        alertCoalescer.record(List.of(firing(patientId, 21L, DAY)));
+
+        ClinicalAlertRecord alert = clinicalAlertRecordRepository.findById(id).orElseThrow();
+        assertEquals(alert.getOccurrenceCount(), Integer.valueOf(2));
+        assertEquals(alert.getFirstSeenDate(), DAY.minusDays(2));
+        assertEquals(alert.getLastSeenDate(), DAY);
+        assertEquals(alert.getLogId(), Long.valueOf(19L));
+    }
+
+    @Test
+    public void countsLateLogInTheBatchThatOpenedTheAlert() {
+        long patientId = 910003L;
+        List<ClinicalAlertRecord> opened = alertCoalescer.record(List.of(
+                firing(patientId, 31L, DAY),
+                firing(patientId, 34L, DAY.plusDays(3)),
+                firing(patientId, 32L, DAY.plusDays(1)),
+                firing(patientId, 32L, DAY.plusDays(1))));
+        assertEquals(opened.size(), 1);
+
+        ClinicalAlertRecord alert = clinicalAlertRecordRepository.findById(opened.get(0).getId()).orElseThrow();
+        assertEquals(alert.getOccurrenceCount(), Integer.valueOf(3));
+        assertEquals(alert.getLastSeenDate(), DAY.plusDays(3));
+    }
+
+    @Test
+    public void appliesRepeatsOfSeveralAlertsInOneCall() {
+        Long first = alertCoalescer.record(List.of(firing(910004L, 41L, DAY))).get(0).getId();
+        Long second = alertCoalescer.record(List.of(firing(910005L, 51L, DAY))).get(0).getId();
+
+        List<ClinicalAlertRecord> opened = alertCoalescer.record(List.of(
+                firing(910004L, 43L, DAY.plusDays(2)),
+                firing(910005L, 52L, DAY.plusDays(1)),
+                firing(910004L, 42L, DAY.plusDays(1)),
+                firing(910005L, 52L, DAY.plusDays(1))));
+        assertEquals(opened.size(), 0);
+
+        ClinicalAlertRecord alert = clinicalAlertRecordRepository.findById(first).orElseThrow();
+        assertEquals(alert.getOccurrenceCount(), Integer.valueOf(3));
+        assertEquals(alert.getLastSeenDate(), DAY.plusDays(2));
+        alert = clinicalAlertRecordRepository.findById(second).orElseThrow();
+        assertEquals(alert.getOccurrenceCount(), Integer.valueOf(2));
+        assertEquals(alert.getLastSeenDate(), DAY.plusDays(1));
+    }
+
+    @Test
+    public void opensNewAlertWhenRememberedOneWasResolvedElsewhere() {
+        long patientId = 910006L;
+        ClinicalAlertRecord first = alertCoalescer.record(List.of(firing(patientId, 61L, DAY))).get(0);
+        // Resolved without going through the alert service, as another node would
+        first.setResolved(true);
+        clinicalAlertRecordRepository.save(first);
+
+        List<ClinicalAlertRecord> opened = alertCoalescer.record(List.of(
+                firing(patientId, 62L, DAY.plusDays(1)), firing(patientId, 63L, DAY.plusDays(2))));
+        assertEquals(opened.size(), 1);
+        ClinicalAlertRecord alert = clinicalAlertRecordRepository.findById(opened.get(0).getId()).orElseThrow();
+        assertEquals(alert.getOccurrenceCount(), Integer.valueOf(2));
+        assertEquals(alert.getFirstSeenDate(), DAY.plusDays(1));
+        assertEquals(clinicalAlertRecordRepository.findById(first.getId()).orElseThrow().getOccurrenceCount(), Integer.valueOf(1));
+    }
+
+    @Test
+    public void concurrentFirstFiringsOpenOneAlert() throws Exception {
+        long patientId = 910007L;
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<ClinicalAlertRecord>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                LocalDate day = DAY.plusDays(i);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return alertCoalescer.record(List.of(firing(patientId, 70L, day)));
+                }));
+            }
+            start.countDown();
+            int opened = 0;
+            for (Future<List<ClinicalAlertRecord>> result : results) {
+                opened += result.get(30, TimeUnit.SECONDS).size();
+            }
+            assertEquals(opened, 1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<ClinicalAlertRecord> stored = clinicalAlertRecordRepository.findByPatientId(patientId);
+        assertEquals(stored.size(), 1);
+        assertEquals(stored.get(0).getOccurrenceCount(), Integer.valueOf(callers));
+    }
+
+    private static ClinicalAlertRecord firing(long patientId, long logId, LocalDate day) {
+        return ClinicalAlertRecord.builder()
+                .patientId(patientId)
+                .logId(logId)
+                .alertType("PAIN_LEVEL_STREAK")
+                .severity("HIGH")
+                .message("Pain level above the curve on 3 consecutive days")
+                .resolved(false)
+                .firstSeenDate(day)
+                .lastSeenDate(day)
+                .occurrenceCount(1)
+                .build();
+    }
+}
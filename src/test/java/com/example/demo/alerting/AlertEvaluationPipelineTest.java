@@ -0,0 +1,172 @@
+package com.example.demo.alerting;
+
+import com.example.demo.exception.ServiceBusyException;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.PatientProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class AlertEvaluationPipelineTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+
+    private AlertEvaluator alertEvaluator;
+    private List<DailySymptomLog> evaluated;
+    private CountDownLatch release;
+    private AlertEvaluationPipeline pipeline;
+
+    @BeforeMethod
+    public void setUp() {
+        alertEvaluator = mock(AlertEvaluator.class);
+        evaluated = Collections.synchronizedList(new ArrayList<>());
+        release = new CountDownLatch(0);
+        doAnswer(invocation -> {
+            // Finishes despite interrupts and returns with the flag set, like a worker stuck in a slow write
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    release.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            evaluated.add(invocation.getArgument(0));
+            return List.of();
+        }).when(alertEvaluator).evaluate(any(), any());
+    }
+
+    @AfterMethod
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    public void evaluatesAPatientsDaysInDateOrderAcrossBatches() throws Exception {
+        pipeline = start(100, 300, 10_000);
+        pipeline.submit(log(1L, DAY.plusDays(1)), patient(1L));
+        waitFor(() -> pipeline.stats().get("submitted").equals(1L));
+        Thread.sleep(50);
+        pipeline.submit(log(1L, DAY), patient(1L));
+
+        waitFor(() -> evaluated.size() == 2);
+        assertEquals(evaluated.stream().map(DailySymptomLog::getLogDate).toList(), List.of(DAY, DAY.plusDays(1)));
+    }
+
+    @Test
+    public void fullLaneRejectsTheWriteInsteadOfDroppingTheLog() throws Exception {
+        release = new CountDownLatch(1);
+        pipeline = start(1, 0, 10_000);
+        pipeline.submit(log(1L, DAY), patient(1L));
+
+        expectThrows(ServiceBusyException.class, () -> pipeline.submit(log(1L, DAY.plusDays(1)), patient(1L)));
+        assertEquals(pipeline.stats().get("busy"), 1L);
+
+        release.countDown();
+        waitFor(() -> pipeline.queueDepth() == 0);
+        pipeline.submit(log(1L, DAY.plusDays(1)), patient(1L));
+        waitFor(() -> evaluated.size() == 2);
+    }
+
+    @Test
+    public void rolledBackWriteReleasesItsSlot() {
+        pipeline = start(1, 0, 10_000);
+        TransactionSynchronizationManager.initSynchronization();
+        pipeline.submit(log(1L, DAY), patient(1L));
+        assertEquals(pipeline.queueDepth(), 1);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(pipeline.queueDepth(), 0);
+        assertEquals(pipeline.stats().get("submitted"), 0L);
+    }
+
+    @Test
+    public void shutdownEvaluatesWhatAnInterruptedWorkerStillHolds() throws Exception {
+        release = new CountDownLatch(1);
+        pipeline = start(100, 0, 50);
+        pipeline.submit(log(1L, DAY), patient(1L));
+        waitFor(() -> (Integer) pipeline.stats().get("inFlight") == 1);
+        pipeline.submit(log(1L, DAY.plusDays(1)), patient(1L));
+        pipeline.submit(log(1L, DAY.plusDays(2)), patient(1L));
+
+        Thread releaser = new Thread(() -> {
+            sleep(200);
+            release.countDown();
+        });
+        releaser.start();
+        pipeline.shutdown();
+
+        assertEquals(evaluated.size(), 3);
+        assertTrue(release.getCount() == 0);
+    }
+
+    private AlertEvaluationPipeline start(int capacity, long reorderMillis, long shutdownTimeoutMillis) {
+        AlertEvaluationPipeline started = new AlertEvaluationPipeline(alertEvaluator, new SimpleMeterRegistry(),
+                1, capacity, 50, reorderMillis, shutdownTimeoutMillis, false);
+        started.start();
+        return started;
+    }
+
+    private static DailySymptomLog log(Long patientId, LocalDate day) {
+        return DailySymptomLog.builder()
+                .patientId(patientId)
+                .logDate(day)
+                .painLevel(4)
+                .mobilityLevel(6)
+                .fatigueLevel(3)
+                .build();
+    }
+
+    private static PatientProfile patient(Long id) {
+        PatientProfile patient = new PatientProfile();
+        patient.setId(id);
+        return patient;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the pipeline");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
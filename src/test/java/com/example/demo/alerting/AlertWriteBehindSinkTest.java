@@ -0,0 +1,153 @@
+package com.example.demo.alerting;
+
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.service.ClinicalAlertService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class AlertWriteBehindSinkTest {
+
+    private ClinicalAlertService clinicalAlertService;
+    private List<ClinicalAlertRecord> stored;
+    private List<String> flushThreads;
+    private AlertWriteBehindSink sink;
+
+    @BeforeMethod
+    public void setUp() {
+        clinicalAlertService = mock(ClinicalAlertService.class);
+        stored = Collections.synchronizedList(new ArrayList<>());
+        flushThreads = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            List<ClinicalAlertRecord> batch = invocation.getArgument(0);
+            flushThreads.add(Thread.currentThread().getName());
+            stored.addAll(batch);
+            return null;
+        }).when(clinicalAlertService).recordAlerts(anyList());
+    }
+
+    @AfterMethod
+    public void tearDown() throws InterruptedException {
+        if (sink != null) {
+            sink.shutdown();
+        }
+    }
+
+    @Test
+    public void flushesFullBatchesOnTheFlusher() throws Exception {
+        sink = start(3, 1_000, 100, 1_000, 10_000);
+        sink.submit(alerts(6));
+
+        waitFor(() -> stored.size() == 6);
+        assertEquals(flushThreads, List.of("alert-sink-flusher", "alert-sink-flusher"));
+        assertEquals(sink.stats().get("flushes"), 2L);
+    }
+
+    @Test
+    public void savesOverflowOnTheProducerThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        blockFirstFlush(release);
+        sink = start(1, 10, 1, 10, 10_000);
+
+        sink.submit(alerts(1));
+        waitFor(() -> flushThreads.contains("alert-sink-flusher"));
+        // One alert fills the buffer, the next does not fit
+        sink.submit(alerts(2));
+
+        assertTrue(flushThreads.contains(Thread.currentThread().getName()), flushThreads.toString());
+        assertEquals(sink.stats().get("overflow"), 1L);
+        release.countDown();
+        waitFor(() -> stored.size() == 3);
+        assertEquals(sink.stats().get("lost"), 0L);
+    }
+
+    @Test
+    public void savesBufferOnTheShutdownThreadWhenTheFlusherIsStuck() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        blockFirstFlush(release);
+        sink = start(2, 10, 100, 1_000, 50);
+
+        sink.submit(alerts(2));
+        waitFor(() -> flushThreads.contains("alert-sink-flusher"));
+        sink.submit(alerts(5));
+
+        Thread releaser = new Thread(() -> {
+            waitFor(() -> stored.size() == 5);
+            release.countDown();
+        });
+        releaser.start();
+        sink.shutdown();
+        sink = null;
+
+        // The buffered alerts were saved here; the batch in flight finished before shutdown returned
+        assertEquals(stored.size(), 7);
+        assertTrue(flushThreads.contains(Thread.currentThread().getName()), flushThreads.toString());
+        releaser.join();
+    }
+
+    private void blockFirstFlush(CountDownLatch release) {
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            List<ClinicalAlertRecord> batch = new ArrayList<>(invocation.getArgument(0));
+            flushThreads.add(Thread.currentThread().getName());
+            if (calls.getAndIncrement() == 0) {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            stored.addAll(batch);
+            return null;
+        }).when(clinicalAlertService).recordAlerts(anyList());
+    }
+
+    private AlertWriteBehindSink start(int batchSize, long flushIntervalMillis, int bufferCapacity,
+                                       long offerTimeoutMillis, long shutdownTimeoutMillis) {
+        AlertWriteBehindSink started = new AlertWriteBehindSink(clinicalAlertService, new SimpleMeterRegistry(),
+                batchSize, flushIntervalMillis, bufferCapacity, offerTimeoutMillis, shutdownTimeoutMillis);
+        started.start();
+        return started;
+    }
+
+    private static List<ClinicalAlertRecord> alerts(int count) {
+        List<ClinicalAlertRecord> alerts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            alerts.add(ClinicalAlertRecord.builder()
+                    .patientId((long) i)
+                    .alertType("PAIN_LEVEL")
+                    .severity("HIGH")
+                    .message("Pain level above the curve")
+                    .lastSeenDate(LocalDate.of(2024, 3, 1))
+                    .build());
+        }
+        return alerts;
+    }
+
+    private static void waitFor(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo.alerting;
+
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.DeviationRule;
+import com.example.demo.model.RecoveryCurveProfile;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class CompiledRuleSetTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 4, 1);
+
+    // Day 0 has no expected pain, day 1 expects pain 3, mobility 6 and fatigue 2
+    private static final CurveSeries CURVE = CurveSeries.of(List.of(
+            new RecoveryCurveProfile(null, "KNEE", 0, null, 5, 3),
+            new RecoveryCurveProfile(null, "KNEE", 1, 3, 6, 2)));
+
+    private static final LocalDate SURGERY = DAY.minusDays(30);
+
+    private static final CurveSeries WINDOW_CURVE = CurveSeries.of(IntStream.rangeClosed(0, 5)
+            .mapToObj(day -> new RecoveryCurveProfile(null, "KNEE", day, 3, 6, 2))
+            .toList());
+
+    @Test
+    public void firesEveryThresholdTheDeviationExceeds() {
+        CompiledRuleSet rules = CompiledRuleSet.compile(List.of(
+                rule("PAIN_HIGH", "PAIN", 4, "HIGH"),
+                rule("PAIN_LOW", "pain", 1, "LOW"),
+                rule("PAIN_MEDIUM", "PAIN", 2, "MEDIUM")));
+
+        List<ClinicalAlertRecord> alerts = rules.evaluate(log(6, 6, 2), CURVE, 1);
+
+        assertEquals(alerts.stream().map(ClinicalAlertRecord::getSeverity).toList(), List.of("LOW", "MEDIUM"));
+        ClinicalAlertRecord alert = alerts.get(0);
+        assertEquals(alert.getAlertType(), "PAIN_SPIKE");
+        assertEquals(alert.getLogId(), Long.valueOf(42));
+        assertEquals(alert.getFirstSeenDate(), DAY);
+        assertEquals(alert.getLastSeenDate(), DAY);
+        assertEquals(alert.getOccurrenceCount(), Integer.valueOf(1));
+    }
+
+    @Test
+    public void deviationIsOnTheWorseSideOfTheCurve() {
+        CompiledRuleSet rules = CompiledRuleSet.compile(List.of(
+                rule("MOBILITY", "MOBILITY", 1, "MEDIUM"),
+                rule("FATIGUE", "FATIGUE", 1, "MEDIUM")));
+
+        assertEquals(types(rules.evaluate(log(3, 4, 2), CURVE, 1)), List.of("MOBILITY_DROP"));
+        // Better than expected on both
+        assertTrue(rules.evaluate(log(3, 9, 0), CURVE, 1).isEmpty());
+        assertEquals(types(rules.evaluate(log(3, 6, 5), CURVE, 1)), List.of("FATIGUE_SPIKE"));
+    }
+
+    @Test
+    public void skipsParametersWithoutAnExpectedOrLoggedValue() {
+        CompiledRuleSet rules = CompiledRuleSet.compile(List.of(
+                rule("PAIN", "PAIN", 0, "LOW"),
+                rule("FATIGUE", "FATIGUE", 0, "LOW")));
+
+        assertEquals(types(rules.evaluate(log(9, 5, 9), CURVE, 0)), List.of("FATIGUE_SPIKE"));
+        assertEquals(types(rules.evaluate(log(null, 6, 9), CURVE, 1)), List.of("FATIGUE_SPIKE"));
+    }
+
+    @Test
+    public void ignoresRulesItCannotEvaluate() {
+        CompiledRuleSet rules = CompiledRuleSet.compile(List.of(
+                rule("PAIN", "PAIN", 1, "LOW"),
+                rule("SLEEP", "SLEEP", 1, "LOW"),
+                rule("NO_THRESHOLD", "PAIN", null, "LOW"),
+                new DeviationRule(null, "UNKNOWN_CONDITION", "PAIN", 1, "LOW", true, "SOMETIMES", null)));
+
+        assertEquals(rules.ruleCount(), 1);
+        assertEquals(rules.ignoredRuleCodes(), List.of("SLEEP", "NO_THRESHOLD", "UNKNOWN_CONDITION"));
+        assertEquals(rules.maxWindowDays(), 0);
+        assertTrue(CompiledRuleSet.EMPTY.evaluate(log(9, 0, 9), CURVE, 1).isEmpty());
+    }
+
+    @Test
+    public void streakRuleNeedsADeviationOnEveryDayOfTheWindow() {
+        CompiledRuleSet rules = CompiledRuleSet.compile(List.of(
+                new DeviationRule(null, "PAIN_STREAK", "PAIN", 1, "HIGH", true, "CONSECUTIVE_DEVIATION", 3)));
+        PatientWindow window = new PatientWindow(rules.maxWindowDays());
+
+        assertEquals(rules.maxWindowDays(), 3);
+        assertTrue(record(rules, window, 0, log(5, 6, 2)).isEmpty());
+        assertTrue(record(rules, window, 1, log(5, 6, 2)).isEmpty());
+        List<ClinicalAlertRecord> alerts = record(rules, window, 2, log(5, 6, 2));
+        assertEquals(types(alerts), List.of("PAIN_SPIKE_STREAK"));
+        assertEquals(alerts.get(0).getMessage(), "Pain level exceeded expected on 3 consecutive days");
+
+        // A day within the threshold, then a gap, each break the streak
+        assertTrue(record(rules, window, 3, log(4, 6, 2)).isEmpty());
+        assertTrue(record(rules, window, 4, log(5, 6, 2)).isEmpty());
+        assertTrue(record(rules, window, 5, log(5, 6, 2)).isEmpty());
+        assertTrue(record(rules, window, 7, log(5, 6, 2)).isEmpty());
+    }
+
+    @Test
+    public void trendRuleComparesLoggedLevelsEvenWhereTheCurveEnds() {
+        CompiledRuleSet rules = CompiledRuleSet.compile(List.of(
+                new DeviationRule(null, "MOBILITY_TREND", "MOBILITY", 2, "MEDIUM", true, "DECLINING_TREND", 3)));
+        PatientWindow window = new PatientWindow(rules.maxWindowDays());
+
+        // The curve covers days 0 to 5 only
+        record(rules, window, 10, log(3, 8, 2));
+        record(rules, window, 11, log(3, 7, 2));
+        assertEquals(types(record(rules, window, 12, log(3, 5, 2))), List.of("MOBILITY_DROP_TREND"));
+        // Worse every day but by no more than the threshold in total
+        record(rules, window, 13, log(3, 4, 2));
+        assertTrue(record(rules, window, 14, log(3, 3, 2)).isEmpty());
+        // Flat from one day to the next
+        assertTrue(record(rules, window, 15, log(3, 3, 2)).isEmpty());
+    }
+
+    @Test
+    public void ignoresWindowRulesWithoutAUsableLength() {
+        CompiledRuleSet rules = CompiledRuleSet.compile(List.of(
+                new DeviationRule(null, "NO_DAYS", "PAIN", 1, "LOW", true, "CONSECUTIVE_DEVIATION", null),
+                new DeviationRule(null, "ONE_DAY", "PAIN", 1, "LOW", true, "DECLINING_TREND", 1),
+                new DeviationRule(null, "TOO_LONG", "PAIN", 1, "LOW", true, "DECLINING_TREND", CompiledRuleSet.MAX_WINDOW_DAYS + 1)));
+
+        assertEquals(rules.ruleCount(), 0);
+        assertEquals(rules.ignoredRuleCodes(), List.of("NO_DAYS", "ONE_DAY", "TOO_LONG"));
+        assertEquals(rules.maxWindowDays(), 0);
+    }
+
+    // Records the log on the given day after surgery, as the pipeline does, and evaluates the window rules
+    private static List<ClinicalAlertRecord> record(CompiledRuleSet rules, PatientWindow window, int day, DailySymptomLog log) {
+        log.setLogDate(SURGERY.plusDays(day));
+        window.record(log, WINDOW_CURVE, day);
+        return rules.evaluateWindows(log, window);
+    }
+
+    private static DeviationRule rule(String code, String parameter, Integer threshold, String severity) {
+        return new DeviationRule(null, code, parameter, threshold, severity, true);
+    }
+
+    private static DailySymptomLog log(Integer pain, Integer mobility, Integer fatigue) {
+        return DailySymptomLog.builder()
+                .id(42L)
+                .patientId(7L)
+                .logDate(DAY)
+                .painLevel(pain)
+                .mobilityLevel(mobility)
+                .fatigueLevel(fatigue)
+                .build();
+    }
+
+    private static List<String> types(List<ClinicalAlertRecord> alerts) {
+        return alerts.stream().map(ClinicalAlertRecord::getAlertType).toList();
+    }
+}
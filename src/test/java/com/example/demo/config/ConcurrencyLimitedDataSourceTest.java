@@ -0,0 +1,63 @@
+package com.example.demo.config;
+
+import org.testng.annotations.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class ConcurrencyLimitedDataSourceTest {
+
+    private static final String BACKGROUND_THREAD = "sink-flusher";
+
+    @Test
+    public void limitedThreadsQueueForPermitsWhilePlatformThreadsUseTheReserve() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 2, 50,
+                thread -> !thread.getName().equals(BACKGROUND_THREAD));
+
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+        assertEquals(dataSource.activePermits(), 2);
+        expectThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        CompletableFuture<Connection> background = new CompletableFuture<>();
+        Thread flusher = new Thread(() -> {
+            try {
+                background.complete(dataSource.getConnection());
+            } catch (Exception e) {
+                background.completeExceptionally(e);
+            }
+        }, BACKGROUND_THREAD);
+        flusher.start();
+        assertNotNull(background.get(5, TimeUnit.SECONDS));
+        assertEquals(dataSource.activePermits(), 2);
+
+        first.close();
+        first.close();
+        assertEquals(dataSource.activePermits(), 1);
+        assertTrue(dataSource.getConnection() != first);
+    }
+
+    @Test
+    public void platformThreadsAreNotLimitedByDefault() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 50);
+
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertEquals(dataSource.activePermits(), 0);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.config;
+
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class VirtualThreadsTest {
+
+    @Test
+    public void createsVirtualThreadFactoryOnJava21() throws Exception {
+        if (Runtime.version().feature() < 21) {
+            assertFalse(VirtualThreads.isSupported());
+            throw new SkipException("Virtual threads need Java 21+, running on " + Runtime.version());
+        }
+        assertTrue(VirtualThreads.isSupported());
+        ThreadFactory factory = VirtualThreads.factory("test-virtual-").orElseThrow();
+
+        CompletableFuture<Boolean> virtual = new CompletableFuture<>();
+        Thread thread = factory.newThread(() ->
+                virtual.complete((Boolean) invoke(Thread.currentThread(), "isVirtual")));
+        thread.start();
+
+        assertTrue(virtual.get(5, TimeUnit.SECONDS));
+        assertEquals(thread.getName(), "test-virtual-0");
+    }
+
+    private static Object invoke(Object target, String method) {
+        try {
+            return Thread.class.getMethod(method).invoke(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.idempotency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+public class IdempotencyFilterTest {
+
+    private static final byte[] BODY = "{\"patientId\":1}".getBytes(StandardCharsets.UTF_8);
+
+    private IdempotencyStore idempotencyStore;
+    private FilterChain filterChain;
+    private IdempotencyFilter filter;
+
+    @BeforeMethod
+    public void setUp() {
+        idempotencyStore = mock(IdempotencyStore.class);
+        filterChain = mock(FilterChain.class);
+        filter = new IdempotencyFilter(idempotencyStore, 64);
+    }
+
+    @Test
+    public void replaysStoredResponseWithoutExecuting() throws Exception {
+        IdempotencyStore.Claim claim = mock(IdempotencyStore.Claim.class);
+        when(claim.getResponse()).thenReturn(Optional.of(
+                new IdempotencyStore.StoredResponse(sha256(BODY), 201, "application/json", "{\"id\":7}".getBytes(StandardCharsets.UTF_8))));
+        when(idempotencyStore.begin(anyString(), anyString())).thenReturn(claim);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(BODY), response, filterChain);
+
+        verify(filterChain, never()).doFilter(any(), any());
+        assertEquals(response.getStatus(), 201);
+        assertEquals(response.getHeader(IdempotencyFilter.REPLAYED_HEADER), "true");
+        assertEquals(response.getContentAsString(), "{\"id\":7}");
+    }
+
+    @Test
+    public void rejectsKeyStillInProgress() throws Exception {
+        IdempotencyStore.Claim claim = mock(IdempotencyStore.Claim.class);
+        when(claim.getResponse()).thenReturn(Optional.empty());
+        when(claim.isInProgress()).thenReturn(true);
+        when(idempotencyStore.begin(anyString(), anyString())).thenReturn(claim);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(BODY), response, filterChain);
+
+        verify(filterChain, never()).doFilter(any(), any());
+        assertEquals(response.getStatus(), 409);
+    }
+
+    @Test
+    public void rejectsBodyOverTheLimit() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(new byte[65]), response, filterChain);
+
+        assertEquals(response.getStatus(), 413);
+        verifyNoInteractions(idempotencyStore, filterChain);
+    }
+
+    @Test
+    public void rejectsBodyOverTheLimitWithoutDeclaredLength() throws Exception {
+        MockHttpServletRequest request = request(new byte[65]);
+        request.removeHeader("Content-Length");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new HttpServletRequestWrapper(request) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        }, response, filterChain);
+
+        assertEquals(response.getStatus(), 413);
+        verifyNoInteractions(idempotencyStore, filterChain);
+    }
+
+    private static MockHttpServletRequest request(byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/symptom-logs");
+        request.addHeader(IdempotencyFilter.HEADER, "retry-1");
+        request.setContentType("application/json");
+        request.setContent(body);
+        return request;
+    }
+
+    private static String sha256(byte[] input) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(input));
+    }
+}
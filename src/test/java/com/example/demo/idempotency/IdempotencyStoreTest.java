@@ -0,0 +1,87 @@
+package com.example.demo.idempotency;
+
+import com.example.demo.AbstractIntegrationTest;
+import com.example.demo.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Two stores on one database stand in for two nodes.
+ */
+public class IdempotencyStoreTest extends AbstractIntegrationTest {
+
+    private static final String REQUEST_HASH = "a".repeat(64);
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Test
+    public void claimOnOneNodeIsInProgressOnAnotherUntilCompleted() {
+        IdempotencyStore first = node(300);
+        IdempotencyStore second = node(300);
+        String key = key();
+
+        IdempotencyStore.Claim claim = first.begin(key, REQUEST_HASH);
+        assertTrue(claim.isClaimed());
+        assertTrue(second.begin(key, REQUEST_HASH).isInProgress());
+
+        first.complete(key, claim, response());
+        IdempotencyStore.Claim replay = second.begin(key, REQUEST_HASH);
+        assertFalse(replay.isClaimed());
+        assertEquals(replay.getResponse().orElseThrow().getStatus(), 201);
+        assertEquals(new String(replay.getResponse().get().getBody(), StandardCharsets.UTF_8), "{\"id\":7}");
+
+        assertEquals(first.stats().get("executed"), 1L);
+        assertEquals(first.stats().get("replayed"), 0L);
+        assertEquals(second.stats().get("executed"), 0L);
+        assertEquals(second.stats().get("replayed"), 1L);
+    }
+
+    @Test
+    public void abandonedClaimCanBeTakenByARetry() {
+        IdempotencyStore first = node(300);
+        IdempotencyStore second = node(300);
+        String key = key();
+
+        first.abandon(key, first.begin(key, REQUEST_HASH));
+
+        assertTrue(second.begin(key, REQUEST_HASH).isClaimed());
+    }
+
+    @Test
+    public void staleClaimIsTakenOverAndItsLateResponseIsNotStored() throws Exception {
+        IdempotencyStore first = node(0);
+        IdempotencyStore second = node(0);
+        String key = key();
+
+        IdempotencyStore.Claim stale = first.begin(key, REQUEST_HASH);
+        Thread.sleep(5);
+        IdempotencyStore.Claim takenOver = second.begin(key, REQUEST_HASH);
+        assertTrue(takenOver.isClaimed());
+
+        first.complete(key, stale, response());
+        assertEquals(idempotencyRecordRepository.findById(key).orElseThrow().getStatusCode(), null);
+        second.complete(key, takenOver, response());
+        assertEquals(idempotencyRecordRepository.findById(key).orElseThrow().getStatusCode(), Integer.valueOf(201));
+    }
+
+    private IdempotencyStore node(long claimTimeoutSeconds) {
+        return new IdempotencyStore(idempotencyRecordRepository, new SimpleMeterRegistry(), 1440, claimTimeoutSeconds, 100, 1024);
+    }
+
+    private static String key() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private static IdempotencyStore.StoredResponse response() {
+        return new IdempotencyStore.StoredResponse(REQUEST_HASH, 201, "application/json", "{\"id\":7}".getBytes(StandardCharsets.UTF_8));
+    }
+}
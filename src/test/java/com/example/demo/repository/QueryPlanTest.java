@@ -0,0 +1,52 @@
+package com.example.demo.repository;
+
+import com.example.demo.AbstractIntegrationTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Checks that the hot lookups and keyset pages are served by the indexes and
+ * unique constraints declared on the entities, using the plans of the schema
+ * Hibernate generates on the embedded database. The SQL mirrors the repository
+ * queries.
+ */
+public class QueryPlanTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DataProvider
+    public Object[][] indexedQueries() {
+        return new Object[][]{
+                {"select * from daily_symptom_log where patient_id = 1 and log_date = date '2024-01-10'",
+                        "uk_log_patient_date"},
+                {"select * from daily_symptom_log where patient_id = 1"
+                        + " and (log_date > date '2024-01-10' or (log_date = date '2024-01-10' and id > 5))"
+                        + " order by log_date asc, id asc fetch first 1000 rows only",
+                        "uk_log_patient_date"},
+                {"select * from clinical_alert_record where patient_id = 1 and id > 5 order by id asc fetch first 50 rows only",
+                        "idx_alert_patient"},
+                {"select * from clinical_alert_record where patient_id = 1 and alert_type = 'PAIN_LEVEL_HIGH'"
+                        + " and severity = 'HIGH' and resolved = false order by id desc fetch first 1 rows only",
+                        "idx_alert_open"},
+                {"select * from recovery_curve_profile where surgery_type = 'KNEE' order by day_number asc",
+                        "uk_curve_surgery_day"},
+                {"select * from deviation_rule where rule_code = 'PAIN_HIGH'", "uk_rule_code"},
+                {"select * from app_user where email = 'someone@example.com'", "uk_app_user_email"},
+                {"select * from patient_profile where patient_id = 'P-1'", "uk_patient_patient_id"},
+                {"select * from patient_profile where surgery_type = 'KNEE'", "idx_patient_surgery_type"},
+        };
+    }
+
+    @Test(dataProvider = "indexedQueries")
+    public void usesIndex(String sql, String index) {
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+        assertFalse(plan.contains("tableScan"), plan);
+        assertTrue(plan.toLowerCase().contains(index), plan);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.security;
+
+import com.example.demo.AbstractIntegrationTest;
+import com.example.demo.model.AppUser;
+import com.example.demo.model.UserRole;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testng.annotations.Test;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.testng.Assert.assertEquals;
+
+public class JwtAuthenticationFilterTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void authenticatedRequestIssuesNoSql() throws Exception {
+        // No such user is stored, so the request only passes if the claims alone authenticate it
+        String token = jwtUtil.generateTokenForUser(AppUser.builder()
+                .id(987654321L)
+                .email("not-stored@example.com")
+                .role(UserRole.CLINICIAN)
+                .build());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long prepared = statistics.getPrepareStatementCount();
+
+        // The first call verifies the token, the second is served from the verified-token cache
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/alerts/health").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(statistics.getPrepareStatementCount(), prepared);
+    }
+
+    @Test
+    public void invalidTokenIsNotAuthenticated() throws Exception {
+        mockMvc.perform(get("/api/alerts/health").header("Authorization", "Bearer not-a-token"))
+                .andExpect(status().isForbidden());
+    }
+}
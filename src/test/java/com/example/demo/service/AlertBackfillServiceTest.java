@@ -0,0 +1,134 @@
+package com.example.demo.service;
+
+import com.example.demo.AbstractIntegrationTest;
+import com.example.demo.model.AlertBackfillPartition;
+import com.example.demo.model.AlertBackfillRun;
+import com.example.demo.model.AlertBackfillStatus;
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.PatientProfile;
+import com.example.demo.repository.AlertBackfillPartitionRepository;
+import com.example.demo.repository.AlertBackfillRunRepository;
+import com.example.demo.repository.ClinicalAlertRecordRepository;
+import com.example.demo.repository.DailySymptomLogRepository;
+import com.example.demo.repository.PatientProfileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Each test plants an open alert of a type no rule raises, which a backfill
+ * treats as obsolete.
+ */
+public class AlertBackfillServiceTest extends AbstractIntegrationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+
+    @Autowired
+    private AlertBackfillService alertBackfillService;
+
+    @Autowired
+    private AlertBackfillRunRepository runRepository;
+
+    @Autowired
+    private AlertBackfillPartitionRepository partitionRepository;
+
+    @Autowired
+    private PatientProfileRepository patientProfileRepository;
+
+    @Autowired
+    private DailySymptomLogRepository dailySymptomLogRepository;
+
+    @Autowired
+    private ClinicalAlertRecordRepository clinicalAlertRecordRepository;
+
+    @Test
+    public void dryRunCountsTheChangesWithoutMakingThem() throws Exception {
+        PatientProfile patient = patient("P-BACKFILL-DRY");
+        Long alertId = obsoleteAlert(patient, log(patient));
+
+        Map<String, Object> status = await(alertBackfillService.start(true));
+
+        assertEquals(status.get("dryRun"), Boolean.TRUE);
+        assertTrue((Long) status.get("alertsToRemove") >= 1);
+        assertTrue(clinicalAlertRecordRepository.existsById(alertId));
+
+        await(alertBackfillService.start(false));
+        assertFalse(clinicalAlertRecordRepository.existsById(alertId));
+    }
+
+    @Test
+    public void resumedRunSkipsThePatientsBeforeTheCheckpoints() throws Exception {
+        PatientProfile done = patient("P-BACKFILL-DONE");
+        PatientProfile pending = patient("P-BACKFILL-PENDING");
+        DailySymptomLog doneLog = log(done);
+        DailySymptomLog pendingLog = log(pending);
+        Long runId = (Long) await(alertBackfillService.start(false)).get("runId");
+
+        // Rewinds the finished run as if it had stopped right after the first patient
+        Long doneAlert = obsoleteAlert(done, doneLog);
+        Long pendingAlert = obsoleteAlert(pending, pendingLog);
+        for (AlertBackfillPartition partition : partitionRepository.findByRunIdOrderByPartitionIndexAsc(runId)) {
+            if (partition.getToPatientId() < done.getId()) {
+                continue;
+            }
+            partition.setCompleted(false);
+            partition.setCheckpointPatientId(Math.max(partition.getFromPatientId(), done.getId()));
+            partitionRepository.save(partition);
+        }
+        AlertBackfillRun run = runRepository.findById(runId).orElseThrow();
+        run.setStatus(AlertBackfillStatus.RUNNING);
+        runRepository.save(run);
+
+        Map<String, Object> status = await(alertBackfillService.start(false));
+
+        assertEquals(status.get("runId"), runId);
+        assertTrue(clinicalAlertRecordRepository.existsById(doneAlert));
+        assertFalse(clinicalAlertRecordRepository.existsById(pendingAlert));
+    }
+
+    private Map<String, Object> await(Map<String, Object> started) throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        Map<String, Object> status = started;
+        while (Boolean.TRUE.equals(status.get("activeOnThisNode"))) {
+            assertTrue(System.nanoTime() < deadline, "Backfill did not finish: " + status);
+            Thread.sleep(50);
+            status = alertBackfillService.status();
+        }
+        assertEquals(status.get("status"), AlertBackfillStatus.COMPLETED.name());
+        return status;
+    }
+
+    private PatientProfile patient(String patientId) {
+        return patientProfileRepository.save(PatientProfile.builder()
+                .patientId(patientId)
+                .fullName("Backfill")
+                .age(58)
+                .email(patientId.toLowerCase() + "@example.com")
+                .surgeryType("BACKFILL")
+                .active(true)
+                .createdAt(DAY.minusDays(7).atStartOfDay())
+                .build());
+    }
+
+    private DailySymptomLog log(PatientProfile patient) {
+        return dailySymptomLogRepository.save(DailySymptomLog.builder()
+                .patientId(patient.getId())
+                .logDate(DAY)
+                .painLevel(3)
+                .mobilityLevel(7)
+                .fatigueLevel(2)
+                .build());
+    }
+
+    private Long obsoleteAlert(PatientProfile patient, DailySymptomLog log) {
+        return clinicalAlertRecordRepository.save(new ClinicalAlertRecord(null, patient.getId(), log.getId(), "BACKFILL_OBSOLETE",
+                "LOW", "No longer raised", false, DAY, DAY, 1)).getId();
+    }
+}
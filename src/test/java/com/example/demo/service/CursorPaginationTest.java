@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import com.example.demo.AbstractIntegrationTest;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.model.ClinicalAlertRecord;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.PatientProfile;
+import com.example.demo.repository.ClinicalAlertRecordRepository;
+import com.example.demo.repository.DailySymptomLogRepository;
+import com.example.demo.repository.PatientProfileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class CursorPaginationTest extends AbstractIntegrationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 7, 1);
+
+    @Autowired
+    private DailySymptomLogService dailySymptomLogService;
+
+    @Autowired
+    private ClinicalAlertService clinicalAlertService;
+
+    @Autowired
+    private PatientProfileRepository patientProfileRepository;
+
+    @Autowired
+    private DailySymptomLogRepository dailySymptomLogRepository;
+
+    @Autowired
+    private ClinicalAlertRecordRepository clinicalAlertRecordRepository;
+
+    @Test
+    public void logPagesFollowTheLogDateWhateverTheInsertOrder() {
+        Long patientId = patient("P-PAGES-LOGS");
+        for (int day : new int[]{3, 0, 4, 1, 2}) {
+            dailySymptomLogRepository.save(DailySymptomLog.builder()
+                    .patientId(patientId)
+                    .logDate(DAY.plusDays(day))
+                    .painLevel(day)
+                    .mobilityLevel(5)
+                    .fatigueLevel(5)
+                    .build());
+        }
+
+        List<List<LocalDate>> pages = walk(cursor -> dailySymptomLogService.getLogsPageByPatient(patientId, cursor, 2),
+                DailySymptomLog::getLogDate);
+
+        assertEquals(pages, List.of(
+                List.of(DAY, DAY.plusDays(1)),
+                List.of(DAY.plusDays(2), DAY.plusDays(3)),
+                List.of(DAY.plusDays(4))));
+    }
+
+    @Test
+    public void alertPagesAreLimitedToThePatientAndEndWithoutACursor() {
+        Long patientId = patient("P-PAGES-ALERTS");
+        Long otherPatientId = patient("P-PAGES-OTHER");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(clinicalAlertRecordRepository.save(alert(patientId, i)).getId());
+            clinicalAlertRecordRepository.save(alert(otherPatientId, i));
+        }
+
+        List<List<Long>> pages = walk(cursor -> clinicalAlertService.getAlertsPage(patientId, cursor, 2), ClinicalAlertRecord::getId);
+
+        assertEquals(pages, List.of(ids.subList(0, 2), ids.subList(2, 4)));
+        assertNull(clinicalAlertService.getAlertsPage(patientId, null, 4).getNextCursor());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Invalid cursor")
+    public void cursorOfAnotherListingIsRejected() {
+        Long patientId = patient("P-PAGES-INVALID");
+        dailySymptomLogService.getLogsPageByPatient(patientId, CursorPage.encodeCursor(12L), 2);
+    }
+
+    // Follows the cursors to the last page and returns each page's keys
+    private static <T, K> List<List<K>> walk(Function<String, CursorPage<T>> fetch, Function<T, K> key) {
+        List<List<K>> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<T> page = fetch.apply(cursor);
+            pages.add(page.getItems().stream().map(key).toList());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return pages;
+    }
+
+    private Long patient(String patientId) {
+        return patientProfileRepository.save(PatientProfile.builder()
+                .patientId(patientId)
+                .fullName("Pages")
+                .age(49)
+                .email(patientId.toLowerCase() + "@example.com")
+                .surgeryType("PAGES")
+                .active(true)
+                .createdAt(DAY.minusDays(20).atStartOfDay())
+                .build()).getId();
+    }
+
+    private static ClinicalAlertRecord alert(Long patientId, int day) {
+        return new ClinicalAlertRecord(null, patientId, null, "PAIN_SPIKE", "LOW", "Pain level exceeded expected", false,
+                DAY.plusDays(day), DAY.plusDays(day), 1);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import com.example.demo.AbstractIntegrationTest;
+import com.example.demo.alerting.AlertEvaluationPipeline;
+import com.example.demo.dto.SymptomLogBatchResult;
+import com.example.demo.exception.DuplicateLogException;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.PatientProfile;
+import com.example.demo.repository.DailySymptomLogRepository;
+import com.example.demo.repository.PatientProfileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+public class DailySymptomLogServiceTest extends AbstractIntegrationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Autowired
+    private DailySymptomLogService dailySymptomLogService;
+
+    @Autowired
+    private DailySymptomLogRepository dailySymptomLogRepository;
+
+    @Autowired
+    private AlertEvaluationPipeline alertEvaluationPipeline;
+
+    @Autowired
+    private PatientProfileRepository patientProfileRepository;
+
+    private Long patientId;
+
+    @BeforeClass
+    public void createPatient() {
+        patientId = patientProfileRepository.save(PatientProfile.builder()
+                .patientId("P-LOG-SERVICE")
+                .fullName("Log Service")
+                .age(61)
+                .email("log-service@example.com")
+                .surgeryType("LOG_SERVICE")
+                .active(true)
+                .createdAt(DAY.minusDays(10).atStartOfDay())
+                .build()).getId();
+    }
+
+    @Test
+    public void secondLogForTheSameDayIsReportedAsDuplicate() {
+        long queued = queuedForEvaluation();
+        DailySymptomLog saved = dailySymptomLogService.recordSymptomLog(log(DAY));
+        assertNotNull(saved.getId());
+        assertEquals(queuedForEvaluation(), queued + 1);
+
+        try {
+            dailySymptomLogService.recordSymptomLog(log(DAY));
+            throw new AssertionError("Expected a duplicate");
+        } catch (DuplicateLogException e) {
+            assertEquals(e.getMessage(), "Log already exists for this date");
+        }
+        assertEquals(dailySymptomLogRepository.findByPatientId(patientId).stream()
+                .filter(log -> log.getLogDate().equals(DAY)).count(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "New logs must not carry an ID")
+    public void clientSuppliedIdIsRejected() {
+        DailySymptomLog log = log(DAY.plusDays(1));
+        log.setId(12345L);
+        dailySymptomLogService.recordSymptomLog(log);
+    }
+
+    @Test
+    public void batchReportsEachEntry() {
+        DailySymptomLog existing = dailySymptomLogRepository.save(log(DAY.plusDays(20)));
+        DailySymptomLog invalid = log(DAY.plusDays(22));
+        invalid.setPainLevel(-1);
+
+        List<SymptomLogBatchResult> results = dailySymptomLogService.recordSymptomLogs(Arrays.asList(
+                log(DAY.plusDays(21)), log(existing.getLogDate()), invalid, log(DAY.plusDays(21)), null));
+
+        assertEquals(results.stream().map(SymptomLogBatchResult::getStatus).toList(), List.of(
+                SymptomLogBatchResult.Status.ACCEPTED, SymptomLogBatchResult.Status.DUPLICATE,
+                SymptomLogBatchResult.Status.REJECTED, SymptomLogBatchResult.Status.DUPLICATE,
+                SymptomLogBatchResult.Status.REJECTED));
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(results.get(i).getIndex(), i);
+        }
+        assertNotNull(results.get(0).getLogId());
+        assertTrue(dailySymptomLogRepository.findById(results.get(0).getLogId()).isPresent());
+    }
+
+    private long queuedForEvaluation() {
+        Map<String, Object> stats = alertEvaluationPipeline.stats();
+        return (Long) stats.get("submitted") + (Long) stats.get("busy") + (Long) stats.get("rejected");
+    }
+
+    private DailySymptomLog log(LocalDate day) {
+        return DailySymptomLog.builder()
+                .patientId(patientId)
+                .logDate(day)
+                .painLevel(4)
+                .mobilityLevel(6)
+                .fatigueLevel(3)
+                .build();
+    }
+}
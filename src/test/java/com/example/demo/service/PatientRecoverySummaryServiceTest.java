@@ -0,0 +1,117 @@
+package com.example.demo.service;
+
+import com.example.demo.AbstractIntegrationTest;
+import com.example.demo.dto.PatientRecoverySummaryView;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.PatientProfile;
+import com.example.demo.model.RecoveryTrend;
+import com.example.demo.repository.DailySymptomLogRepository;
+import com.example.demo.repository.PatientProfileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+public class PatientRecoverySummaryServiceTest extends AbstractIntegrationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 6, 1);
+
+    @Autowired
+    private PatientRecoverySummaryService patientRecoverySummaryService;
+
+    @Autowired
+    private DailySymptomLogService dailySymptomLogService;
+
+    @Autowired
+    private DailySymptomLogRepository dailySymptomLogRepository;
+
+    @Autowired
+    private PatientProfileRepository patientProfileRepository;
+
+    @Test
+    public void logWritesUpdateTheSummary() {
+        Long patientId = patient("P-SUMMARY-WRITES");
+        for (int day = 0; day < 4; day++) {
+            dailySymptomLogService.recordSymptomLog(log(patientId, DAY.plusDays(day), 6 - day, 3 + day, 4));
+        }
+
+        PatientRecoverySummaryView summary = patientRecoverySummaryService.getSummary(patientId);
+        assertEquals(summary.getLogCount(), 4);
+        assertEquals(summary.getLastLogDate(), DAY.plusDays(3));
+        assertEquals(summary.getLatestPainLevel(), Integer.valueOf(3));
+        assertEquals(summary.getPainAverage7d(), 4.5);
+        assertEquals(summary.getMobilityAverage7d(), 4.5);
+        assertEquals(summary.getPainTrend(), RecoveryTrend.IMPROVING);
+        assertEquals(summary.getMobilityTrend(), RecoveryTrend.IMPROVING);
+        assertEquals(summary.getFatigueTrend(), RecoveryTrend.STABLE);
+        assertSameAsRebuilt(summary);
+    }
+
+    @Test
+    public void lateAndReplacedLogsKeepTheLatestDay() {
+        Long patientId = patient("P-SUMMARY-LATE");
+        dailySymptomLogService.recordSymptomLog(log(patientId, DAY.plusDays(10), 5, 5, 5));
+        // Inside the seven day window, then before it
+        dailySymptomLogService.recordSymptomLog(log(patientId, DAY.plusDays(8), 7, 5, 5));
+        dailySymptomLogService.recordSymptomLog(log(patientId, DAY, 9, 1, 9));
+
+        PatientRecoverySummaryView summary = patientRecoverySummaryService.getSummary(patientId);
+        assertEquals(summary.getLogCount(), 3);
+        assertEquals(summary.getLastLogDate(), DAY.plusDays(10));
+        assertEquals(summary.getLatestPainLevel(), Integer.valueOf(5));
+        assertEquals(summary.getPainAverage7d(), 6.0);
+        assertEquals(summary.getPainTrend(), RecoveryTrend.INSUFFICIENT_DATA);
+
+        DailySymptomLog replaced = dailySymptomLogRepository.findByPatientId(patientId).stream()
+                .filter(log -> log.getLogDate().equals(DAY.plusDays(10)))
+                .findFirst().orElseThrow();
+        replaced.setPainLevel(3);
+        patientRecoverySummaryService.recordLogs(List.of(dailySymptomLogRepository.save(replaced)), false);
+
+        summary = patientRecoverySummaryService.getSummary(patientId);
+        assertEquals(summary.getLogCount(), 3);
+        assertEquals(summary.getLatestPainLevel(), Integer.valueOf(3));
+        assertEquals(summary.getPainAverage7d(), 5.0);
+        assertSameAsRebuilt(summary);
+    }
+
+    private void assertSameAsRebuilt(PatientRecoverySummaryView summary) {
+        PatientRecoverySummaryView rebuilt = patientRecoverySummaryService.rebuild(summary.getPatientId());
+        assertEquals(rebuilt.getLogCount(), summary.getLogCount());
+        assertEquals(rebuilt.getLastLogDate(), summary.getLastLogDate());
+        assertEquals(rebuilt.getLatestPainLevel(), summary.getLatestPainLevel());
+        assertEquals(rebuilt.getLatestMobilityLevel(), summary.getLatestMobilityLevel());
+        assertEquals(rebuilt.getLatestFatigueLevel(), summary.getLatestFatigueLevel());
+        assertEquals(rebuilt.getPainAverage7d(), summary.getPainAverage7d());
+        assertEquals(rebuilt.getMobilityAverage7d(), summary.getMobilityAverage7d());
+        assertEquals(rebuilt.getFatigueAverage7d(), summary.getFatigueAverage7d());
+        assertEquals(rebuilt.getPainTrend(), summary.getPainTrend());
+        assertEquals(rebuilt.getMobilityTrend(), summary.getMobilityTrend());
+        assertEquals(rebuilt.getFatigueTrend(), summary.getFatigueTrend());
+    }
+
+    private Long patient(String patientId) {
+        return patientProfileRepository.save(PatientProfile.builder()
+                .patientId(patientId)
+                .fullName("Summary")
+                .age(66)
+                .email(patientId.toLowerCase() + "@example.com")
+                .surgeryType("SUMMARY")
+                .active(true)
+                .createdAt(DAY.minusDays(14).atStartOfDay())
+                .build()).getId();
+    }
+
+    private static DailySymptomLog log(Long patientId, LocalDate day, int pain, int mobility, int fatigue) {
+        return DailySymptomLog.builder()
+                .patientId(patientId)
+                .logDate(day)
+                .painLevel(pain)
+                .mobilityLevel(mobility)
+                .fatigueLevel(fatigue)
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.service;
+
+import com.example.demo.AbstractIntegrationTest;
+import com.example.demo.dto.SymptomLogImportSummary;
+import com.example.demo.model.DailySymptomLog;
+import com.example.demo.model.PatientProfile;
+import com.example.demo.repository.DailySymptomLogRepository;
+import com.example.demo.repository.PatientProfileRepository;
+import com.example.demo.service.impl.SymptomLogImportServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SymptomLogCsvRoundTripTest extends AbstractIntegrationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 2, 1);
+    private static final String[] NOTES = {
+            "Swelling in the morning\nbetter by the evening",
+            "Typed in a browser\r\nwith \"quotes\", commas\r\n\r\nand a blank line",
+            "Plain note",
+            null
+    };
+
+    @Autowired
+    private SymptomLogExportService symptomLogExportService;
+
+    @Autowired
+    private SymptomLogImportService symptomLogImportService;
+
+    @Autowired
+    private DailySymptomLogRepository dailySymptomLogRepository;
+
+    @Autowired
+    private PatientProfileRepository patientProfileRepository;
+
+    @Test
+    public void notesWithLineBreaksSurviveExportAndImport() throws Exception {
+        PatientProfile patient = patientProfileRepository.save(PatientProfile.builder()
+                .patientId("P-CSV-ROUND-TRIP")
+                .fullName("Round Trip")
+                .age(54)
+                .email("round-trip@example.com")
+                .surgeryType("CSV_ROUND_TRIP")
+                .active(true)
+                .createdAt(DAY.minusDays(10).atStartOfDay())
+                .build());
+        for (int i = 0; i < NOTES.length; i++) {
+            dailySymptomLogRepository.save(log(patient.getId(), DAY.plusDays(i), NOTES[i]));
+        }
+
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        assertEquals(symptomLogExportService.exportCohort("CSV_ROUND_TRIP", SymptomLogFormat.CSV, exported), NOTES.length);
+        String csv = exported.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.contains("\"Swelling in the morning\nbetter by the evening\""), csv);
+
+        dailySymptomLogRepository.deleteAll(dailySymptomLogRepository.findByPatientId(patient.getId()));
+        SymptomLogImportSummary summary = symptomLogImportService.importLogs(
+                new ByteArrayInputStream(exported.toByteArray()), SymptomLogFormat.CSV);
+        assertEquals(summary.getAccepted(), NOTES.length);
+        assertEquals(summary.getRejected(), 0);
+
+        List<DailySymptomLog> imported = dailySymptomLogRepository.findByPatientId(patient.getId()).stream()
+                .sorted(Comparator.comparing(DailySymptomLog::getLogDate))
+                .toList();
+        assertEquals(imported.size(), NOTES.length);
+        for (int i = 0; i < NOTES.length; i++) {
+            assertEquals(imported.get(i).getLogDate(), DAY.plusDays(i));
+            assertEquals(imported.get(i).getAdditionalNotes(), NOTES[i]);
+            assertEquals(imported.get(i).getPainLevel(), Integer.valueOf(3 + i));
+        }
+    }
+
+    @Test
+    public void reportsRowsByTheLineTheyStartOn() throws Exception {
+        // No such patient, so the first row is rejected when its chunk is written
+        String csv = String.join(",", SymptomLogFormat.CSV_COLUMNS) + "\n"
+                + "987654321,2024-02-01,3,4,5,\"two\nlines\"\n"
+                + "not-a-number,2024-02-02,3,4,5,\n"
+                + "987654321,2024-02-03,3,4,5,\"never closed\n";
+        SymptomLogImportSummary summary = symptomLogImportService.importLogs(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), SymptomLogFormat.CSV);
+
+        assertEquals(summary.getRejected(), 3);
+        List<String> lines = summary.getErrors().stream().map(error -> error.substring(0, error.indexOf(':'))).sorted().toList();
+        assertEquals(lines, List.of("line 2", "line 4", "line 5"));
+    }
+
+    @Test
+    public void strayQuoteRejectsOnlyTheRowsItSwallows() throws Exception {
+        StringBuilder csv = new StringBuilder(String.join(",", SymptomLogFormat.CSV_COLUMNS)).append('\n')
+                .append("987654321,2024-02-01,3,4,5,\"opened here\n");
+        for (int i = 0; i < 150; i++) {
+            csv.append("not-a-number,2024-02-02,3,4,5,\n");
+        }
+        SymptomLogImportSummary summary = symptomLogImportService.importLogs(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), SymptomLogFormat.CSV);
+
+        // The quoted row is cut off after 100 line breaks; the lines after it are read as rows again
+        assertTrue(summary.getErrors().get(0).startsWith("line 2: Row exceeds"), summary.getErrors().get(0));
+        assertEquals(summary.getTotalRows(), 1 + 150 - 100);
+        assertEquals(summary.getRejected(), summary.getTotalRows());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void chunkSizeAboveBatchLimitIsRejected() {
+        new SymptomLogImportServiceImpl(null, new ObjectMapper(), 501, 100000, 500);
+    }
+
+    private static DailySymptomLog log(Long patientId, LocalDate day, String notes) {
+        int offset = (int) (day.toEpochDay() - DAY.toEpochDay());
+        return DailySymptomLog.builder()
+                .patientId(patientId)
+                .logDate(day)
+                .painLevel(3 + offset)
+                .mobilityLevel(5)
+                .fatigueLevel(4)
+                .additionalNotes(notes)
+                .build();
+    }
+}